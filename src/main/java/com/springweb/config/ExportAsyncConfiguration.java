@@ -0,0 +1,48 @@
+package com.springweb.config;
+
+import com.springweb.service.CsvExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Gives the CSV exports their own async timeout. A streamed export runs for as long as its table
+ * takes to read, far past the container's default async timeout, while every other async request
+ * keeps that default.
+ */
+@Configuration
+public class ExportAsyncConfiguration implements WebMvcConfigurer {
+
+    private final long exportTimeoutMs;
+
+    public ExportAsyncConfiguration(@Value("${springweb.export.timeout-ms:1800000}") long exportTimeoutMs) {
+        this.exportTimeoutMs = exportTimeoutMs;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            // Runs before async processing starts, once the export's headers are on the response
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asyncRequest && isExport(request)) {
+                    asyncRequest.setTimeout(exportTimeoutMs);
+                }
+            }
+        });
+    }
+
+    private static boolean isExport(NativeWebRequest request) {
+        HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+        String contentType = response != null ? response.getContentType() : null;
+        return contentType != null && CsvExportService.TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+}
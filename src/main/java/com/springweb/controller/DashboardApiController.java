@@ -0,0 +1,72 @@
+package com.springweb.controller;
+
+import com.springweb.service.DashboardSummaryService;
+import com.springweb.service.LiveFeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin(origins = "*")
+public class DashboardApiController {
+
+    private static final String AUTHENTICATED_USER = "authenticatedUser";
+    private static final String SUCCESS = "success";
+    private static final String MESSAGE = "message";
+
+    @Autowired
+    private DashboardSummaryService dashboardSummaryService;
+
+    @Autowired
+    private LiveFeedService liveFeedService;
+
+    // Helper method to check authentication
+    private boolean isAuthenticated(HttpSession session) {
+        return session.getAttribute(AUTHENTICATED_USER) != null;
+    }
+
+    // Everything the dashboard cards show, in one round trip
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getSummary(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put(SUCCESS, true);
+            response.put("summary", dashboardSummaryService.getSummary());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Error loading dashboard summary: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Server-Sent Events: order, transaction, product and stock notices after each committed change.
+    // Browsers reconnect on their own and send Last-Event-ID, which decides whether a resync is due
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeLiveFeed(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            HttpSession session) {
+
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(liveFeedService.subscribe(lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).build();
+        }
+    }
+}
@@ -7,18 +7,35 @@ import com.springweb.entity.User;
 import com.springweb.repository.OrderRepository;
 import com.springweb.repository.ProductRepository;
 import com.springweb.repository.UserRepository;
+import com.springweb.service.CsvExportService;
+import com.springweb.service.InsufficientStockException;
+import com.springweb.service.KeysetCursor;
+import com.springweb.service.OptimisticRetryExecutor;
+import com.springweb.service.OrderChangedEvent;
+import com.springweb.service.OrderService;
+import com.springweb.service.OrderStatisticsService;
+import com.springweb.service.ProductNotFoundException;
+import com.springweb.service.ReferenceNumberGenerator;
+import com.springweb.service.StockService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.servlet.http.HttpSession;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 @RestController
@@ -29,6 +46,7 @@ public class OrderController {
     private static final String AUTHENTICATED_USER = "authenticatedUser";
     private static final String SUCCESS = "success";
     private static final String MESSAGE = "message";
+    private static final int MAX_FEED_SIZE = 200;
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
 
     @Autowired
@@ -40,11 +58,88 @@ public class OrderController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+
+    @Autowired
+    private ReferenceNumberGenerator referenceNumberGenerator;
+
+    @Autowired
+    private OrderStatisticsService orderStatisticsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CsvExportService csvExportService;
+
     // Helper method to check authentication
     private boolean isAuthenticated(HttpSession session) {
         return session.getAttribute(AUTHENTICATED_USER) != null;
     }
 
+    // Helper method to build the response for an edit made from an outdated copy of the order
+    private ResponseEntity<Map<String, Object>> conflictResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put(SUCCESS, false);
+        response.put(MESSAGE, "The order was changed by another user, please reload and try again");
+        return ResponseEntity.status(409).body(response);
+    }
+
+    // Helper method to refuse an edit whose submitted version is not the one just read; null when it may proceed
+    private ResponseEntity<Map<String, Object>> rejectStaleVersion(Object submittedVersion, Long currentVersion) {
+        if (submittedVersion == null || submittedVersion.toString().trim().isEmpty()) {
+            return null;
+        }
+        try {
+            if (Long.valueOf(submittedVersion.toString().trim()).equals(currentVersion)) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Invalid version format");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return conflictResponse();
+    }
+
+    // Helper method to run an update with retries when another user saved the same order first
+    private ResponseEntity<Map<String, Object>> withConflictRetry(String operation,
+            Supplier<ResponseEntity<Map<String, Object>>> mutation) {
+        try {
+            return retryExecutor.execute(operation, mutation);
+        } catch (OptimisticLockingFailureException e) {
+            return conflictResponse();
+        }
+    }
+
+    // Helper method to record that an order changed; call it inside the transaction of the change
+    private void publishChange(Order order, OrderChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new OrderChangedEvent(order.getId(), order.getPlacedAt(), changeType,
+                order.getStatus()));
+    }
+
+    // Helper method to move stock, save an order and record the change in one transaction, so a
+    // rejected stock line or a conflicting save rolls back all three
+    private Order saveAndPublish(Order order, Map<Long, Integer> stockDeltas, OrderChangedEvent.ChangeType changeType) {
+        return transactionTemplate.execute(status -> {
+            stockService.apply(stockDeltas);
+            Order savedOrder = orderRepository.save(order);
+            publishChange(savedOrder, changeType);
+            return savedOrder;
+        });
+    }
+
     // Helper method to validate email
     private boolean isValidEmail(String email) {
         return email != null && EMAIL_PATTERN.matcher(email).matches();
@@ -52,7 +147,26 @@ public class OrderController {
 
     // Helper method to generate order number
     private String generateOrderNumber() {
-        return "ORD" + System.currentTimeMillis();
+        return referenceNumberGenerator.next("ORD");
+    }
+
+    // Helper method to build the insufficient stock message from the rejected lines
+    private String insufficientStockMessage(InsufficientStockException e, Map<Long, Product> products) {
+        List<String> names = new ArrayList<>();
+        for (Long productId : e.getProductIds()) {
+            Product product = products.get(productId);
+            names.add(product != null ? product.getName() : String.valueOf(productId));
+        }
+        return "Insufficient stock for product: " + String.join(", ", names);
+    }
+
+    // Helper method to index the products referenced by order items
+    private Map<Long, Product> productsOf(List<OrderItem> orderItems) {
+        Map<Long, Product> products = new HashMap<>();
+        for (OrderItem item : orderItems) {
+            products.put(item.getProduct().getId(), item.getProduct());
+        }
+        return products;
     }
 
     // Helper method to calculate order total
@@ -82,51 +196,26 @@ public class OrderController {
                     ? Sort.by(sortBy).descending()
                     : Sort.by(sortBy).ascending();
 
-            List<Order> orders;
-            if (page == -1) {
-                // Return all orders without pagination using the optimized query
-                orders = orderRepository.findAllWithItems();
-
-                // Apply filters if needed
-                if (search != null && !search.trim().isEmpty()) {
-                    orders = orderRepository.findAllWithSearch(search);
-                }
-
-                if (status != null && !status.trim().isEmpty()) {
-                    try {
-                        Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-                        orders = orders.stream()
-                                .filter(order -> order.getStatus() == orderStatus)
-                                .toList();
-                    } catch (IllegalArgumentException ignored) {
-                    }
+            Order.OrderStatus orderStatus = null;
+            if (status != null && !status.trim().isEmpty()) {
+                try {
+                    orderStatus = Order.OrderStatus.valueOf(status.trim().toUpperCase());
+                } catch (IllegalArgumentException ignored) {
                 }
+            }
 
+            if (page == -1) {
+                // Return all matching orders without pagination
+                Page<Order> orders = orderService.findOrders(search, orderStatus, Pageable.unpaged(sort));
                 response.put(SUCCESS, true);
-                response.put("orders", orders);
+                response.put("orders", orders.getContent());
             } else {
-                // Use the new paginated query with fetched relationships
+                // Filters, sorting and paging all run in the database
                 Pageable pageable = PageRequest.of(page, size, sort);
-                Page<Order> orderPage = orderRepository.findAllWithItemsPaged(pageable);
-                orders = orderPage.getContent();
-
-                // Apply filters if needed
-                if (search != null && !search.trim().isEmpty()) {
-                    orders = orderRepository.findAllWithSearch(search);
-                }
-
-                if (status != null && !status.trim().isEmpty()) {
-                    try {
-                        Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-                        orders = orders.stream()
-                                .filter(order -> order.getStatus() == orderStatus)
-                                .toList();
-                    } catch (IllegalArgumentException ignored) {
-                    }
-                }
+                Page<Order> orderPage = orderService.findOrders(search, orderStatus, pageable);
 
                 response.put(SUCCESS, true);
-                response.put("orders", orders);
+                response.put("orders", orderPage.getContent());
                 response.put("totalElements", orderPage.getTotalElements());
                 response.put("totalPages", orderPage.getTotalPages());
                 response.put("currentPage", page);
@@ -140,6 +229,56 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<Map<String, Object>> getOrderFeed(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
+            HttpSession session) {
+
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            Slice<Order> window = orderService.findOrdersAfter(cursor, Math.max(1, Math.min(size, MAX_FEED_SIZE)));
+
+            List<Order> orders = window.getContent();
+            String nextCursor = null;
+            if (window.hasNext() && !orders.isEmpty()) {
+                Order last = orders.get(orders.size() - 1);
+                nextCursor = new KeysetCursor(last.getPlacedAt(), last.getId()).encode();
+            }
+
+            response.put(SUCCESS, true);
+            response.put("orders", orders);
+            response.put("hasMore", window.hasNext());
+            response.put("nextCursor", nextCursor);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Invalid cursor: " + after);
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Error fetching orders: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Full history as CSV, written while it is read from the database
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(CsvExportService.TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, CsvExportService.attachment("orders"))
+                .body(csvExportService.exportOrders());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getOrderById(@PathVariable Long id, HttpSession session) {
         if (!isAuthenticated(session)) {
@@ -222,10 +361,8 @@ public class OrderController {
                 }
             }
 
-            // Create order items
-            List<OrderItem> orderItems = new ArrayList<>();
-            BigDecimal totalAmount = BigDecimal.ZERO;
-
+            // Parse order lines; products and stock are resolved in bulk by the order service
+            List<OrderService.OrderLine> lines = new ArrayList<>();
             for (Map<String, Object> itemData : orderItemsData) {
                 Long productId = Long.valueOf(itemData.get("productId").toString());
                 Integer quantity = Integer.valueOf(itemData.get("quantity").toString());
@@ -236,47 +373,21 @@ public class OrderController {
                     return ResponseEntity.badRequest().body(response);
                 }
 
-                Optional<Product> productOpt = productRepository.findById(productId);
-                if (!productOpt.isPresent()) {
-                    response.put(SUCCESS, false);
-                    response.put(MESSAGE, "Product not found: " + productId);
-                    return ResponseEntity.badRequest().body(response);
-                }
-
-                Product product = productOpt.get();
-
-                // Check stock availability
-                if (product.getStockQuantity() < quantity) {
-                    response.put(SUCCESS, false);
-                    response.put(MESSAGE, "Insufficient stock for product: " + product.getName());
-                    return ResponseEntity.badRequest().body(response);
-                }
-
-                OrderItem orderItem = new OrderItem();
-                orderItem.setProduct(product);
-                orderItem.setQuantity(quantity);
-                orderItem.setUnitPrice(product.getPrice());
-
-                // Calculate and set total price for this item (will also be set by @PrePersist)
-                BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
-                orderItem.setTotalPrice(itemTotal);
-
-                // Set the order relationship
-                orderItem.setOrder(order);
-                orderItems.add(orderItem);
-
-                // Add to order total
-                totalAmount = totalAmount.add(itemTotal);
-
-                // Update product stock
-                product.setStockQuantity(product.getStockQuantity() - quantity);
-                productRepository.save(product);
+                lines.add(new OrderService.OrderLine(productId, quantity));
             }
 
-            order.setOrderItems(orderItems);
-            order.setTotalAmount(totalAmount);
-
-            Order savedOrder = orderRepository.save(order);
+            Order savedOrder;
+            try {
+                savedOrder = orderService.placeOrder(order, lines);
+            } catch (ProductNotFoundException e) {
+                response.put(SUCCESS, false);
+                response.put(MESSAGE, "Product not found: " + e.getProductId());
+                return ResponseEntity.badRequest().body(response);
+            } catch (InsufficientStockException e) {
+                response.put(SUCCESS, false);
+                response.put(MESSAGE, "Insufficient stock for product: " + String.join(", ", e.getProductNames()));
+                return ResponseEntity.badRequest().body(response);
+            }
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Order created successfully");
@@ -293,6 +404,11 @@ public class OrderController {
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateOrder(@PathVariable Long id,
             @RequestBody Map<String, Object> orderData, HttpSession session) {
+        return withConflictRetry("order.update", () -> applyOrderUpdate(id, orderData, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyOrderUpdate(Long id,
+            Map<String, Object> orderData, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -307,6 +423,11 @@ public class OrderController {
             }
 
             Order existingOrder = optionalOrder.get();
+            ResponseEntity<Map<String, Object>> stale = rejectStaleVersion(orderData.get("version"),
+                    existingOrder.getVersion());
+            if (stale != null) {
+                return stale;
+            }
 
             // Update customer information
             String customerName = (String) orderData.get("customerName");
@@ -335,6 +456,7 @@ public class OrderController {
             }
 
             // Handle order items update
+            Map<Long, Integer> stockDeltas = Collections.emptyMap();
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> orderItemsData = (List<Map<String, Object>>) orderData.get("orderItems");
             if (orderItemsData != null) {
@@ -344,12 +466,8 @@ public class OrderController {
                     return ResponseEntity.badRequest().body(response);
                 }
 
-                // Restore stock for existing items
-                for (OrderItem existingItem : existingOrder.getOrderItems()) {
-                    Product product = existingItem.getProduct();
-                    product.setStockQuantity(product.getStockQuantity() + existingItem.getQuantity());
-                    productRepository.save(product);
-                }
+                // Quantities currently held by this order
+                Map<Long, Integer> previousQuantities = StockService.quantitiesOf(existingOrder.getOrderItems());
 
                 // Create new order items
                 List<OrderItem> newOrderItems = new ArrayList<>();
@@ -357,6 +475,7 @@ public class OrderController {
                 // Update order items
                 BigDecimal newTotalAmount = BigDecimal.ZERO;
 
+                List<OrderService.OrderLine> lines = new ArrayList<>();
                 for (Map<String, Object> itemData : orderItemsData) {
                     Long productId = Long.valueOf(itemData.get("productId").toString());
                     Integer quantity = Integer.valueOf(itemData.get("quantity").toString());
@@ -367,21 +486,22 @@ public class OrderController {
                         return ResponseEntity.badRequest().body(response);
                     }
 
-                    Optional<Product> productOpt = productRepository.findById(productId);
-                    if (!productOpt.isPresent()) {
-                        response.put(SUCCESS, false);
-                        response.put(MESSAGE, "Product not found: " + productId);
-                        return ResponseEntity.badRequest().body(response);
-                    }
+                    lines.add(new OrderService.OrderLine(productId, quantity));
+                }
 
-                    Product product = productOpt.get();
+                // Every product of the edit is loaded with one query, as for a new order
+                Map<Long, Product> products;
+                try {
+                    products = orderService.resolveProducts(lines);
+                } catch (ProductNotFoundException e) {
+                    response.put(SUCCESS, false);
+                    response.put(MESSAGE, "Product not found: " + e.getProductId());
+                    return ResponseEntity.badRequest().body(response);
+                }
 
-                    // Check stock availability
-                    if (product.getStockQuantity() < quantity) {
-                        response.put(SUCCESS, false);
-                        response.put(MESSAGE, "Insufficient stock for product: " + product.getName());
-                        return ResponseEntity.badRequest().body(response);
-                    }
+                for (OrderService.OrderLine line : lines) {
+                    Product product = products.get(line.getProductId());
+                    int quantity = line.getQuantity();
 
                     OrderItem orderItem = new OrderItem();
                     orderItem.setProduct(product);
@@ -398,25 +518,33 @@ public class OrderController {
 
                     // Add to order total
                     newTotalAmount = newTotalAmount.add(itemTotal);
-
-                    // Update product stock
-                    product.setStockQuantity(product.getStockQuantity() - quantity);
-                    productRepository.save(product);
                 }
 
-                existingOrder.setOrderItems(newOrderItems);
+                // Only the net change per product touches stock
+                stockDeltas = StockService.difference(StockService.quantitiesOf(newOrderItems), previousQuantities);
+                existingOrder.updateOrderItems(newOrderItems);
                 existingOrder.setTotalAmount(newTotalAmount);
             }
 
             existingOrder.setUpdatedAt(LocalDateTime.now());
 
-            Order savedOrder = orderRepository.save(existingOrder);
+            Order savedOrder;
+            try {
+                savedOrder = saveAndPublish(existingOrder, stockDeltas, OrderChangedEvent.ChangeType.UPDATED);
+            } catch (InsufficientStockException e) {
+                response.put(SUCCESS, false);
+                response.put(MESSAGE, insufficientStockMessage(e, productsOf(existingOrder.getOrderItems())));
+                return ResponseEntity.badRequest().body(response);
+            }
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Order updated successfully");
             response.put("order", savedOrder);
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error updating order: " + e.getMessage());
@@ -427,6 +555,11 @@ public class OrderController {
     @PutMapping("/{id}/status")
     public ResponseEntity<Map<String, Object>> updateOrderStatus(@PathVariable Long id,
             @RequestBody Map<String, String> statusData, HttpSession session) {
+        return withConflictRetry("order.status", () -> applyOrderStatusUpdate(id, statusData, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyOrderStatusUpdate(Long id,
+            Map<String, String> statusData, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -440,6 +573,12 @@ public class OrderController {
                 return ResponseEntity.status(404).body(response);
             }
 
+            ResponseEntity<Map<String, Object>> stale = rejectStaleVersion(statusData.get("version"),
+                    optionalOrder.get().getVersion());
+            if (stale != null) {
+                return stale;
+            }
+
             String statusStr = statusData.get("status");
             if (statusStr == null || statusStr.trim().isEmpty()) {
                 response.put(SUCCESS, false);
@@ -450,41 +589,37 @@ public class OrderController {
             try {
                 Order.OrderStatus newStatus = Order.OrderStatus.valueOf(statusStr.toUpperCase());
                 Order existingOrder = optionalOrder.get();
+                Order.OrderStatus oldStatus = existingOrder.getStatus();
+                Map<Long, Integer> quantities = StockService.quantitiesOf(existingOrder.getOrderItems());
+                Map<Long, Integer> stockDeltas = Collections.emptyMap();
 
                 // If cancelling order, restore stock
-                if (newStatus == Order.OrderStatus.CANCELLED
-                        && existingOrder.getStatus() != Order.OrderStatus.CANCELLED) {
-                    for (OrderItem item : existingOrder.getOrderItems()) {
-                        Product product = item.getProduct();
-                        product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                        productRepository.save(product);
-                    }
+                if (newStatus == Order.OrderStatus.CANCELLED && oldStatus != Order.OrderStatus.CANCELLED) {
+                    stockDeltas = StockService.negate(quantities);
                 }
-
-                Order.OrderStatus oldStatus = existingOrder.getStatus();
-                existingOrder.setStatus(newStatus);
-
                 // If changing from a completed state back to processing/pending, restore stock
-                if ((oldStatus == Order.OrderStatus.COMPLETED || oldStatus == Order.OrderStatus.DELIVERED)
+                else if ((oldStatus == Order.OrderStatus.COMPLETED || oldStatus == Order.OrderStatus.DELIVERED)
                         && (newStatus == Order.OrderStatus.PROCESSING || newStatus == Order.OrderStatus.PENDING)) {
-                    for (OrderItem item : existingOrder.getOrderItems()) {
-                        Product product = item.getProduct();
-                        product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                        productRepository.save(product);
-                    }
+                    stockDeltas = StockService.negate(quantities);
                 }
                 // If changing to completed/delivered state, update stock
                 else if ((oldStatus == Order.OrderStatus.PROCESSING || oldStatus == Order.OrderStatus.PENDING)
                         && (newStatus == Order.OrderStatus.COMPLETED || newStatus == Order.OrderStatus.DELIVERED)) {
-                    for (OrderItem item : existingOrder.getOrderItems()) {
-                        Product product = item.getProduct();
-                        product.setStockQuantity(product.getStockQuantity() - item.getQuantity());
-                        productRepository.save(product);
-                    }
+                    stockDeltas = quantities;
                 }
+
+                existingOrder.setStatus(newStatus);
                 existingOrder.setUpdatedAt(LocalDateTime.now());
 
-                Order savedOrder = orderRepository.save(existingOrder);
+                Order savedOrder;
+                try {
+                    savedOrder = saveAndPublish(existingOrder, stockDeltas,
+                            OrderChangedEvent.ChangeType.STATUS_CHANGED);
+                } catch (InsufficientStockException e) {
+                    response.put(SUCCESS, false);
+                    response.put(MESSAGE, insufficientStockMessage(e, productsOf(existingOrder.getOrderItems())));
+                    return ResponseEntity.badRequest().body(response);
+                }
 
                 response.put(SUCCESS, true);
                 response.put(MESSAGE, "Order status updated successfully");
@@ -497,6 +632,9 @@ public class OrderController {
                 return ResponseEntity.badRequest().body(response);
             }
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error updating order status: " + e.getMessage());
@@ -506,6 +644,10 @@ public class OrderController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteOrder(@PathVariable Long id, HttpSession session) {
+        return withConflictRetry("order.delete", () -> applyOrderDelete(id, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyOrderDelete(Long id, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -521,19 +663,20 @@ public class OrderController {
 
             Order order = optionalOrder.get();
 
-            // Restore stock for all items
-            for (OrderItem item : order.getOrderItems()) {
-                Product product = item.getProduct();
-                product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                productRepository.save(product);
-            }
-
-            orderRepository.deleteById(id);
+            // Delete, restore stock for all items and record the change together
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.deleteById(id);
+                stockService.release(StockService.quantitiesOf(order.getOrderItems()));
+                publishChange(order, OrderChangedEvent.ChangeType.DELETED);
+            });
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Order deleted successfully");
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error deleting order: " + e.getMessage());
@@ -619,22 +762,7 @@ public class OrderController {
 
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Order> allOrders = orderRepository.findAll();
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalOrders", allOrders.size());
-            stats.put("pendingOrders",
-                    allOrders.stream().filter(o -> o.getStatus() == Order.OrderStatus.PENDING).count());
-            stats.put("completedOrders",
-                    allOrders.stream().filter(o -> o.getStatus() == Order.OrderStatus.COMPLETED).count());
-            stats.put("cancelledOrders",
-                    allOrders.stream().filter(o -> o.getStatus() == Order.OrderStatus.CANCELLED).count());
-
-            BigDecimal totalRevenue = allOrders.stream()
-                    .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED)
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            stats.put("totalRevenue", totalRevenue);
+            Map<String, Object> stats = orderStatisticsService.getStatistics();
 
             response.put(SUCCESS, true);
             response.put("statistics", stats);
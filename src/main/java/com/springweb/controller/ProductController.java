@@ -4,18 +4,30 @@ import com.springweb.entity.Product;
 import com.springweb.repository.ProductRepository;
 import com.springweb.repository.CategoryRepository;
 import com.springweb.repository.SupplierRepository;
+import com.springweb.service.CsvExportService;
+import com.springweb.service.LowStockIndex;
+import com.springweb.service.OptimisticRetryExecutor;
+import com.springweb.service.ProductChangedEvent;
+import com.springweb.service.ProductSearchIndex;
+import com.springweb.service.StockChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.servlet.http.HttpSession;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -35,11 +47,34 @@ public class ProductController {
     @Autowired
     private SupplierRepository supplierRepository;
 
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // Helper method to check authentication
     private boolean isAuthenticated(HttpSession session) {
         return session.getAttribute(AUTHENTICATED_USER) != null;
     }
 
+    // Helper method to record a product change; call it inside the transaction of the change
+    private void publishChange(Long productId, ProductChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, changeType));
+    }
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
@@ -57,7 +92,7 @@ public class ProductController {
             if (page == -1) {
                 List<Product> allProducts;
                 if (search != null && !search.trim().isEmpty()) {
-                    allProducts = productRepository.findByNameContainingIgnoreCase(search);
+                    allProducts = productSearchIndex.search(search);
                 } else {
                     allProducts = productRepository.findAll();
                 }
@@ -74,7 +109,7 @@ public class ProductController {
             Page<Product> productPage;
 
             if (search != null && !search.trim().isEmpty()) {
-                productPage = productRepository.findByNameContainingIgnoreCase(search, pageable);
+                productPage = productSearchIndex.search(search, pageable);
             } else {
                 productPage = productRepository.findAll(pageable);
             }
@@ -93,6 +128,18 @@ public class ProductController {
         }
     }
 
+    // Whole catalogue as CSV, written while it is read from the database
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(CsvExportService.TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, CsvExportService.attachment("products"))
+                .body(csvExportService.exportProducts());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long id, HttpSession session) {
         if (!isAuthenticated(session)) {
@@ -179,7 +226,11 @@ public class ProductController {
                 product.setIsActive(true);
             }
 
-            Product savedProduct = productRepository.save(product);
+            Product savedProduct = transactionTemplate.execute(status -> {
+                Product created = productRepository.save(product);
+                publishChange(created.getId(), ProductChangedEvent.ChangeType.CREATED);
+                return created;
+            });
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Product created successfully");
@@ -196,6 +247,23 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateProduct(@PathVariable Long id, @RequestBody Product product,
             HttpSession session) {
+        try {
+            // Retries cover an order taking stock between our read and save; a stale form is refused outright
+            return retryExecutor.execute("product.update", () -> applyProductUpdate(id, product, session));
+        } catch (OptimisticLockingFailureException e) {
+            return conflictResponse();
+        }
+    }
+
+    // Helper method to build the response for an edit made from an outdated copy of the product
+    private ResponseEntity<Map<String, Object>> conflictResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put(SUCCESS, false);
+        response.put(MESSAGE, "The product was changed by another user, please reload and try again");
+        return ResponseEntity.status(409).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> applyProductUpdate(Long id, Product product, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -210,6 +278,9 @@ public class ProductController {
             }
 
             Product existingProduct = existingProductOpt.get();
+            if (product.getVersion() != null && !product.getVersion().equals(existingProduct.getVersion())) {
+                return conflictResponse();
+            }
 
             // Validate required fields
             if (product.getName() != null && !product.getName().trim().isEmpty()) {
@@ -236,10 +307,6 @@ public class ProductController {
                 existingProduct.setDescription(product.getDescription());
             }
 
-            if (product.getStockQuantity() != null) {
-                existingProduct.setStockQuantity(product.getStockQuantity());
-            }
-
             if (product.getIsActive() != null) {
                 existingProduct.setIsActive(product.getIsActive());
             }
@@ -266,13 +333,30 @@ public class ProductController {
                 }
             }
 
-            Product savedProduct = productRepository.save(existingProduct);
+            // The stock is written by the product's own versioned UPDATE, so an order that took stock
+            // since the read makes the save conflict instead of being overwritten
+            boolean stockChanged = product.getStockQuantity() != null
+                    && !product.getStockQuantity().equals(existingProduct.getStockQuantity());
+            if (stockChanged) {
+                existingProduct.setStockQuantity(product.getStockQuantity());
+            }
+
+            Product savedProduct = transactionTemplate.execute(status -> {
+                Product updated = productRepository.save(existingProduct);
+                if (stockChanged) {
+                    eventPublisher.publishEvent(new StockChangedEvent(Set.of(id)));
+                }
+                publishChange(id, ProductChangedEvent.ChangeType.UPDATED);
+                return updated;
+            });
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Product updated successfully");
             response.put("product", savedProduct);
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error updating product: " + e.getMessage());
@@ -294,7 +378,10 @@ public class ProductController {
                 return ResponseEntity.status(404).body(response);
             }
 
-            productRepository.deleteById(id);
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.deleteById(id);
+                publishChange(id, ProductChangedEvent.ChangeType.DELETED);
+            });
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Product deleted successfully");
@@ -326,9 +413,10 @@ public class ProductController {
         }
     }
 
+    // Without a threshold, lists the active products at or below their own reorder level
     @GetMapping("/low-stock")
     public ResponseEntity<Map<String, Object>> getLowStockProducts(
-            @RequestParam(defaultValue = "10") int threshold,
+            @RequestParam(required = false) Integer threshold,
             HttpSession session) {
 
         if (!isAuthenticated(session)) {
@@ -337,10 +425,12 @@ public class ProductController {
 
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Product> lowStockProducts = productRepository.findByStockLessThan(threshold);
+            List<Product> lowStockProducts = threshold != null
+                    ? productRepository.findByStockLessThan(threshold)
+                    : lowStockIndex.findProducts();
             response.put(SUCCESS, true);
             response.put("products", lowStockProducts);
-            response.put("threshold", threshold);
+            response.put("threshold", threshold != null ? threshold : "reorderLevel");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put(SUCCESS, false);
@@ -357,7 +447,7 @@ public class ProductController {
 
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Product> products = productRepository.findByNameContainingIgnoreCase(name);
+            List<Product> products = productSearchIndex.search(name);
             response.put(SUCCESS, true);
             response.put("products", products);
             return ResponseEntity.ok(response);
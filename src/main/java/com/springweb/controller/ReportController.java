@@ -2,15 +2,27 @@ package com.springweb.controller;
 
 import com.springweb.entity.*;
 import com.springweb.repository.*;
+import com.springweb.service.LowStockIndex;
+import com.springweb.service.ReportCache;
+import com.springweb.service.ReportJob;
+import com.springweb.service.ReportJobService;
+import com.springweb.service.ReportSnapshotService;
+import com.springweb.service.SalesRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -21,6 +33,8 @@ public class ReportController {
        private static final String AUTHENTICATED_USER = "authenticatedUser";
        private static final String SUCCESS = "success";
        private static final String MESSAGE = "message";
+       private static final int MAX_INVENTORY_PAGE_SIZE = 1000;
+       private static final int MAX_SNAPSHOT_PAGE_SIZE = 100;
 
        @Autowired
        private OrderRepository orderRepository;
@@ -34,6 +48,27 @@ public class ReportController {
        @Autowired
        private CategoryRepository categoryRepository;
 
+       @Autowired
+       private DailySalesRepository dailySalesRepository;
+
+       @Autowired
+       private DailyCategorySalesRepository dailyCategorySalesRepository;
+
+       @Autowired
+       private SalesRollupService salesRollupService;
+
+       @Autowired
+       private ReportCache reportCache;
+
+       @Autowired
+       private ReportSnapshotService snapshotService;
+
+       @Autowired
+       private ReportJobService reportJobService;
+
+       @Autowired
+       private LowStockIndex lowStockIndex;
+
        // Helper method to check authentication
        private boolean isAuthenticated(HttpSession session) {
               return session.getAttribute(AUTHENTICATED_USER) != null;
@@ -54,55 +89,56 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00")
-                                   : LocalDateTime.now().minusMonths(1);
-                     LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59")
-                                   : LocalDateTime.now();
+                     Map<String, Object> reportData = dateRangeReport("sales", startOf(startDate), endOf(endDate),
+                                   category, null, session);
 
-                     List<Order> orders = orderRepository.findByDateRange(start, end);
+                     response.put(SUCCESS, true);
+                     response.put("report", reportData);
+                     return ResponseEntity.ok(response);
 
-                     // Filter by category if specified
-                     if (category != null && !category.isEmpty()) {
-                            orders = orders.stream()
-                                          .filter(order -> order.getOrderItems().stream()
-                                                        .anyMatch(item -> item.getProduct().getCategory().getName()
-                                                                      .equalsIgnoreCase(category)))
-                                          .collect(Collectors.toList());
-                     }
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error generating sales report: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
 
-                     // Calculate metrics
-                     BigDecimal totalSales = orders.stream()
-                                   .map(Order::getTotalAmount)
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+       // Recomputes the sales rollups for a range, e.g. after orders were changed directly in the database
+       @PostMapping("/sales/rollup/rebuild")
+       public ResponseEntity<Map<String, Object>> rebuildSalesRollup(
+                     @RequestParam String startDate,
+                     @RequestParam String endDate,
+                     HttpSession session) {
 
-                     long totalOrders = orders.size();
-
-                     // Group sales by category
-                     Map<String, BigDecimal> salesByCategory = new HashMap<>();
-                     orders.forEach(order -> {
-                            order.getOrderItems().forEach(item -> {
-                                   String cat = item.getProduct().getCategory().getName();
-                                   BigDecimal amount = item.getProduct().getPrice()
-                                                 .multiply(new BigDecimal(item.getQuantity()));
-                                   salesByCategory.merge(cat, amount, BigDecimal::add);
-                            });
-                     });
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
 
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalSales", totalSales);
-                     reportData.put("totalOrders", totalOrders);
-                     reportData.put("salesByCategory", salesByCategory);
-                     reportData.put("startDate", start);
-                     reportData.put("endDate", end);
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     LocalDate start = LocalDate.parse(startDate);
+                     LocalDate end = LocalDate.parse(endDate);
+                     if (end.isBefore(start)) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "endDate must not be before startDate");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+
+                     salesRollupService.rebuild(start, end);
+                     snapshotService.evict(ReportSnapshotService.ORDER_REPORTS, start, end);
+                     reportCache.invalidate(ReportCache.Source.ORDERS);
 
                      response.put(SUCCESS, true);
-                     response.put("report", reportData);
+                     response.put(MESSAGE, "Sales rollup rebuilt from " + start + " to " + end);
                      return ResponseEntity.ok(response);
 
+              } catch (DateTimeParseException e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Dates must use the format yyyy-MM-dd");
+                     return ResponseEntity.badRequest().body(response);
               } catch (Exception e) {
                      response.put(SUCCESS, false);
-                     response.put(MESSAGE, "Error generating sales report: " + e.getMessage());
+                     response.put(MESSAGE, "Error rebuilding sales rollup: " + e.getMessage());
                      return ResponseEntity.internalServerError().body(response);
               }
        }
@@ -120,43 +156,8 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00")
-                                   : LocalDateTime.now().minusMonths(1);
-                     LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59")
-                                   : LocalDateTime.now();
-
-                     List<Transaction> transactions = transactionRepository.findByDateRange(start, end);
-
-                     // Calculate revenue metrics
-                     BigDecimal totalRevenue = transactions.stream()
-                                   .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
-                                   .map(Transaction::getAmount)
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                     BigDecimal totalRefunds = transactions.stream()
-                                   .filter(t -> t.getTransactionType() == Transaction.TransactionType.REFUND)
-                                   .map(Transaction::getAmount)
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                     // Group transactions by time period
-                     Map<String, BigDecimal> revenueByPeriod = new TreeMap<>();
-                     DateTimeFormatter formatter = getFormatterForGrouping(groupBy);
-
-                     transactions.forEach(transaction -> {
-                            String period = transaction.getCreatedAt().format(formatter);
-                            if (transaction.getStatus() == Transaction.TransactionStatus.COMPLETED) {
-                                   revenueByPeriod.merge(period, transaction.getAmount(), BigDecimal::add);
-                            }
-                     });
-
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalRevenue", totalRevenue);
-                     reportData.put("totalRefunds", totalRefunds);
-                     reportData.put("netRevenue", totalRevenue.subtract(totalRefunds));
-                     reportData.put("revenueByPeriod", revenueByPeriod);
-                     reportData.put("startDate", start);
-                     reportData.put("endDate", end);
+                     Map<String, Object> reportData = dateRangeReport("revenue", startOf(startDate), endOf(endDate),
+                                   null, RevenueReportRepository.Period.fromGroupBy(groupBy), session);
 
                      response.put(SUCCESS, true);
                      response.put("report", reportData);
@@ -174,6 +175,7 @@ public class ReportController {
        @GetMapping("/inventory")
        public ResponseEntity<Map<String, Object>> generateInventoryReport(
                      @RequestParam(required = false) String category,
+                     @RequestParam(defaultValue = "10") int threshold,
                      HttpSession session) {
 
               if (!isAuthenticated(session)) {
@@ -182,62 +184,75 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     List<Product> products = productRepository.findAll();
+                     Map<String, Object> reportData = reportCache.get("inventory",
+                                   EnumSet.of(ReportCache.Source.PRODUCTS),
+                                   () -> buildInventoryReport(category, threshold), category, threshold);
 
-                     // Filter by category if specified
-                     if (category != null && !category.isEmpty()) {
-                            products = products.stream()
-                                          .filter(product -> product.getCategory().getName().equalsIgnoreCase(category))
-                                          .collect(Collectors.toList());
-                     }
+                     response.put(SUCCESS, true);
+                     response.put("report", reportData);
+                     return ResponseEntity.ok(response);
 
-                     // Calculate inventory metrics
-                     long totalProducts = products.size();
-                     BigDecimal totalValue = products.stream()
-                                   .map(product -> product.getPrice()
-                                                 .multiply(new BigDecimal(product.getStockQuantity())))
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error generating inventory report: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
 
-                     // Group products by category
-                     Map<String, List<Map<String, Object>>> productsByCategory = products.stream()
-                                   .collect(Collectors.groupingBy(
-                                                 product -> product.getCategory().getName(),
-                                                 Collectors.mapping(
-                                                               product -> {
-                                                                      Map<String, Object> productData = new HashMap<>();
-                                                                      productData.put("id", product.getId());
-                                                                      productData.put("name", product.getName());
-                                                                      productData.put("stock",
-                                                                                    product.getStockQuantity());
-                                                                      productData.put("price", product.getPrice());
-                                                                      productData.put("value", product.getPrice()
-                                                                                    .multiply(new BigDecimal(product
-                                                                                                  .getStockQuantity())));
-                                                                      return productData;
-                                                               },
-                                                               Collectors.toList())));
-
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalProducts", totalProducts);
-                     reportData.put("totalInventoryValue", totalValue);
-                     reportData.put("productsByCategory", productsByCategory);
-                     reportData.put("generatedAt", LocalDateTime.now());
+       // Per-product detail of the inventory report, one page at a time
+       @GetMapping("/inventory/products")
+       public ResponseEntity<Map<String, Object>> getInventoryReportProducts(
+                     @RequestParam(required = false) String category,
+                     @RequestParam(defaultValue = "0") int page,
+                     @RequestParam(defaultValue = "100") int size,
+                     HttpSession session) {
+
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     Pageable pageable = PageRequest.of(Math.max(page, 0),
+                                   Math.min(Math.max(size, 1), MAX_INVENTORY_PAGE_SIZE));
+                     Page<Object[]> rows = category != null && !category.isEmpty()
+                                   ? productRepository.findInventoryRowsByCategory(category, pageable)
+                                   : productRepository.findInventoryRows(pageable);
+
+                     List<Map<String, Object>> products = new ArrayList<>(rows.getNumberOfElements());
+                     for (Object[] row : rows) {
+                            Integer stock = (Integer) row[3];
+                            BigDecimal price = (BigDecimal) row[4];
+
+                            Map<String, Object> productData = new HashMap<>();
+                            productData.put("id", row[0]);
+                            productData.put("name", row[1]);
+                            productData.put("sku", row[2]);
+                            productData.put("stock", stock);
+                            productData.put("price", price);
+                            productData.put("value", price.multiply(new BigDecimal(stock)));
+                            productData.put("category", row[5]);
+                            products.add(productData);
+                     }
 
                      response.put(SUCCESS, true);
-                     response.put("report", reportData);
+                     response.put("products", products);
+                     response.put("currentPage", rows.getNumber());
+                     response.put("totalItems", rows.getTotalElements());
+                     response.put("totalPages", rows.getTotalPages());
                      return ResponseEntity.ok(response);
 
               } catch (Exception e) {
                      response.put(SUCCESS, false);
-                     response.put(MESSAGE, "Error generating inventory report: " + e.getMessage());
+                     response.put(MESSAGE, "Error fetching inventory products: " + e.getMessage());
                      return ResponseEntity.internalServerError().body(response);
               }
        }
 
+       // Without a threshold, reports the active products at or below their own reorder level
        @GetMapping("/low-stock")
        public ResponseEntity<Map<String, Object>> generateLowStockAlert(
-                     @RequestParam(defaultValue = "10") int threshold,
+                     @RequestParam(required = false) Integer threshold,
                      HttpSession session) {
 
               if (!isAuthenticated(session)) {
@@ -246,30 +261,9 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     List<Product> lowStockProducts = productRepository.findByStockLessThan(threshold);
-
-                     // Group low stock products by category
-                     Map<String, List<Map<String, Object>>> lowStockByCategory = lowStockProducts.stream()
-                                   .collect(Collectors.groupingBy(
-                                                 product -> product.getCategory().getName(),
-                                                 Collectors.mapping(
-                                                               product -> {
-                                                                      Map<String, Object> productData = new HashMap<>();
-                                                                      productData.put("id", product.getId());
-                                                                      productData.put("name", product.getName());
-                                                                      productData.put("stock",
-                                                                                    product.getStockQuantity());
-                                                                      productData.put("threshold", threshold);
-                                                                      return productData;
-                                                               },
-                                                               Collectors.toList())));
-
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalLowStockProducts", lowStockProducts.size());
-                     reportData.put("threshold", threshold);
-                     reportData.put("lowStockByCategory", lowStockByCategory);
-                     reportData.put("generatedAt", LocalDateTime.now());
+                     Map<String, Object> reportData = reportCache.get("low-stock",
+                                   EnumSet.of(ReportCache.Source.PRODUCTS),
+                                   () -> buildLowStockAlert(threshold), threshold);
 
                      response.put(SUCCESS, true);
                      response.put("report", reportData);
@@ -296,49 +290,8 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00")
-                                   : LocalDateTime.now().minusMonths(1);
-                     LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59")
-                                   : LocalDateTime.now();
-
-                     List<Transaction> transactions = transactionRepository.findByDateRange(start, end);
-
-                     // Calculate transaction metrics
-                     long totalTransactions = transactions.size();
-
-                     // Group by transaction type
-                     Map<Transaction.TransactionType, List<Transaction>> byType = transactions.stream()
-                                   .collect(Collectors.groupingBy(Transaction::getTransactionType));
-
-                     // Group by payment method
-                     Map<Transaction.PaymentMethod, List<Transaction>> byPaymentMethod = transactions.stream()
-                                   .collect(Collectors.groupingBy(Transaction::getPaymentMethod));
-
-                     // Calculate totals by type
-                     Map<String, BigDecimal> totalsByType = new HashMap<>();
-                     byType.forEach((type, txList) -> {
-                            BigDecimal total = txList.stream()
-                                          .map(Transaction::getAmount)
-                                          .reduce(BigDecimal.ZERO, BigDecimal::add);
-                            totalsByType.put(type.toString(), total);
-                     });
-
-                     // Calculate totals by payment method
-                     Map<String, BigDecimal> totalsByPaymentMethod = new HashMap<>();
-                     byPaymentMethod.forEach((method, txList) -> {
-                            BigDecimal total = txList.stream()
-                                          .map(Transaction::getAmount)
-                                          .reduce(BigDecimal.ZERO, BigDecimal::add);
-                            totalsByPaymentMethod.put(method.toString(), total);
-                     });
-
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalTransactions", totalTransactions);
-                     reportData.put("totalsByType", totalsByType);
-                     reportData.put("totalsByPaymentMethod", totalsByPaymentMethod);
-                     reportData.put("startDate", start);
-                     reportData.put("endDate", end);
+                     Map<String, Object> reportData = dateRangeReport("transaction-summary", startOf(startDate),
+                                   endOf(endDate), null, null, session);
 
                      response.put(SUCCESS, true);
                      response.put("report", reportData);
@@ -363,69 +316,595 @@ public class ReportController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00")
-                                   : LocalDateTime.now().minusMonths(1);
-                     LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59")
-                                   : LocalDateTime.now();
-
-                     // Get orders and transactions for the period
-                     List<Order> orders = orderRepository.findByDateRange(start, end);
-                     List<Transaction> transactions = transactionRepository.findByDateRange(start, end);
-
-                     // Calculate revenue metrics
-                     BigDecimal totalRevenue = transactions.stream()
-                                   .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
-                                   .map(Transaction::getAmount)
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+                     Map<String, Object> reportData = dateRangeReport("financial-summary", startOf(startDate),
+                                   endOf(endDate), null, null, session);
 
-                     BigDecimal totalRefunds = transactions.stream()
-                                   .filter(t -> t.getTransactionType() == Transaction.TransactionType.REFUND)
-                                   .map(Transaction::getAmount)
-                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+                     response.put(SUCCESS, true);
+                     response.put("report", reportData);
+                     return ResponseEntity.ok(response);
 
-                     BigDecimal netRevenue = totalRevenue.subtract(totalRefunds);
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error generating financial summary: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
 
-                     // Calculate order metrics
-                     long totalOrders = orders.size();
-                     BigDecimal averageOrderValue = totalOrders > 0
-                                   ? totalRevenue.divide(new BigDecimal(totalOrders), 2, BigDecimal.ROUND_HALF_UP)
-                                   : BigDecimal.ZERO;
+       // REPORT SNAPSHOTS
 
-                     // Create report data
-                     Map<String, Object> reportData = new HashMap<>();
-                     reportData.put("totalRevenue", totalRevenue);
-                     reportData.put("totalRefunds", totalRefunds);
-                     reportData.put("netRevenue", netRevenue);
-                     reportData.put("totalOrders", totalOrders);
-                     reportData.put("averageOrderValue", averageOrderValue);
-                     reportData.put("startDate", start);
-                     reportData.put("endDate", end);
+       @GetMapping("/snapshots")
+       public ResponseEntity<Map<String, Object>> listSnapshots(
+                     @RequestParam(required = false) String type,
+                     @RequestParam(defaultValue = "0") int page,
+                     @RequestParam(defaultValue = "20") int size,
+                     HttpSession session) {
+
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     Pageable pageable = PageRequest.of(Math.max(page, 0),
+                                   Math.min(Math.max(size, 1), MAX_SNAPSHOT_PAGE_SIZE));
+                     Page<Object[]> rows = snapshotService.list(type, pageable);
+
+                     List<Map<String, Object>> snapshots = new ArrayList<>(rows.getNumberOfElements());
+                     for (Object[] row : rows) {
+                            Map<String, Object> snapshot = new HashMap<>();
+                            snapshot.put("id", row[0]);
+                            snapshot.put("type", row[1]);
+                            snapshot.put("startDate", row[2]);
+                            snapshot.put("endDate", row[3]);
+                            snapshot.put("parameters", row[4]);
+                            snapshot.put("generatedAt", row[5]);
+                            snapshot.put("contentLength", row[6]);
+                            snapshots.add(snapshot);
+                     }
 
                      response.put(SUCCESS, true);
-                     response.put("report", reportData);
+                     response.put("snapshots", snapshots);
+                     response.put("currentPage", rows.getNumber());
+                     response.put("totalItems", rows.getTotalElements());
+                     response.put("totalPages", rows.getTotalPages());
                      return ResponseEntity.ok(response);
 
               } catch (Exception e) {
                      response.put(SUCCESS, false);
-                     response.put(MESSAGE, "Error generating financial summary: " + e.getMessage());
+                     response.put(MESSAGE, "Error fetching report snapshots: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
+
+       @GetMapping("/snapshots/{id}")
+       public ResponseEntity<Map<String, Object>> getSnapshot(@PathVariable Long id, HttpSession session) {
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     Optional<Report> snapshot = snapshotService.findById(id);
+                     if (!snapshot.isPresent()) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "Report snapshot not found");
+                            return ResponseEntity.status(404).body(response);
+                     }
+
+                     response.put(SUCCESS, true);
+                     response.put("snapshot", describeSnapshot(snapshot.get()));
+                     response.put("report", snapshotService.decode(snapshot.get()));
+                     return ResponseEntity.ok(response);
+
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error fetching report snapshot: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
+
+       // Stores a closed period, given as period=last-month, period=last-quarter or startDate/endDate.
+       // Returns the stored snapshot when the same report was stored before
+       @PostMapping("/snapshots")
+       public ResponseEntity<Map<String, Object>> createSnapshot(
+                     @RequestParam String type,
+                     @RequestParam(required = false) String period,
+                     @RequestParam(required = false) String startDate,
+                     @RequestParam(required = false) String endDate,
+                     @RequestParam(required = false) String category,
+                     @RequestParam(required = false) String groupBy,
+                     HttpSession session) {
+
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     LocalDate start;
+                     LocalDate end;
+                     LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+                     if ("last-month".equalsIgnoreCase(period)) {
+                            start = firstOfMonth.minusMonths(1);
+                            end = firstOfMonth.minusDays(1);
+                     } else if ("last-quarter".equalsIgnoreCase(period)) {
+                            LocalDate quarterStart = firstOfMonth
+                                          .withMonth((firstOfMonth.getMonthValue() - 1) / 3 * 3 + 1);
+                            start = quarterStart.minusMonths(3);
+                            end = quarterStart.minusDays(1);
+                     } else if (period == null && startDate != null && endDate != null) {
+                            start = LocalDate.parse(startDate);
+                            end = LocalDate.parse(endDate);
+                     } else {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE,
+                                          "Give period=last-month, period=last-quarter or startDate and endDate");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+
+                     RevenueReportRepository.Period bucket = RevenueReportRepository.Period.fromGroupBy(groupBy);
+                     Supplier<Map<String, Object>> builder = builderFor(type, start, end, category, bucket);
+                     if (builder == null) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "Snapshots are available for sales, revenue, transaction-summary "
+                                          + "and financial-summary");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+                     if (end.isBefore(start) || !ReportSnapshotService.isClosed(end)) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "Only periods that ended before today can be stored");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+
+                     Report snapshot = snapshotService.findOrCreate(type, start, end,
+                                   parametersFor(type, category, bucket),
+                                   (String) session.getAttribute(AUTHENTICATED_USER), builder);
+
+                     response.put(SUCCESS, true);
+                     response.put("snapshot", describeSnapshot(snapshot));
+                     response.put("report", snapshotService.decode(snapshot));
+                     return ResponseEntity.ok(response);
+
+              } catch (DateTimeParseException e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Dates must use the format yyyy-MM-dd");
+                     return ResponseEntity.badRequest().body(response);
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error storing report snapshot: " + e.getMessage());
+                     return ResponseEntity.internalServerError().body(response);
+              }
+       }
+
+       // REPORT JOBS
+
+       // Queues a date-range report on the report job pool and returns its id straight away;
+       // poll /jobs/{id} for progress and fetch /jobs/{id}/result once it has completed
+       @PostMapping("/jobs")
+       public ResponseEntity<Map<String, Object>> submitReportJob(
+                     @RequestParam String type,
+                     @RequestParam(required = false) String startDate,
+                     @RequestParam(required = false) String endDate,
+                     @RequestParam(required = false) String category,
+                     @RequestParam(required = false) String groupBy,
+                     HttpSession session) {
+
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              try {
+                     LocalDate start = startOf(startDate);
+                     LocalDate end = endOf(endDate);
+                     RevenueReportRepository.Period bucket = RevenueReportRepository.Period.fromGroupBy(groupBy);
+                     if (builderFor(type, start, end, category, bucket) == null) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "Report jobs are available for sales, revenue, transaction-summary "
+                                          + "and financial-summary");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+                     if (end.isBefore(start)) {
+                            response.put(SUCCESS, false);
+                            response.put(MESSAGE, "End date must not be before start date");
+                            return ResponseEntity.badRequest().body(response);
+                     }
+
+                     String username = (String) session.getAttribute(AUTHENTICATED_USER);
+                     String parameters = parametersFor(type, category, bucket);
+                     String description = type + " " + start + ".." + end
+                                   + (parameters.isEmpty() ? "" : " " + parameters);
+                     ReportJob job = reportJobService.submit(type, description, username, running -> {
+                            running.advance("computing", 30);
+                            return dateRangeReport(type, start, end, category, bucket, username);
+                     });
+
+                     response.put(SUCCESS, true);
+                     response.put("job", describeJob(job));
+                     return ResponseEntity.accepted().body(response);
+
+              } catch (RejectedExecutionException e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Too many report jobs are queued, please try again later");
+                     return ResponseEntity.status(429).body(response);
+              } catch (DateTimeParseException e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Dates must use the format yyyy-MM-dd");
+                     return ResponseEntity.badRequest().body(response);
+              } catch (Exception e) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Error submitting report job: " + e.getMessage());
                      return ResponseEntity.internalServerError().body(response);
               }
        }
 
-       // Helper method for revenue analysis
-       private DateTimeFormatter getFormatterForGrouping(String groupBy) {
-              if (groupBy == null) {
-                     groupBy = "daily";
+       @GetMapping("/jobs/{id}")
+       public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable String id, HttpSession session) {
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
               }
 
-              switch (groupBy.toLowerCase()) {
-                     case "weekly":
-                            return DateTimeFormatter.ofPattern("yyyy-'W'ww");
-                     case "monthly":
-                            return DateTimeFormatter.ofPattern("yyyy-MM");
-                     case "daily":
+              Map<String, Object> response = new HashMap<>();
+              Optional<ReportJob> job = reportJobService.find(id, (String) session.getAttribute(AUTHENTICATED_USER));
+              if (!job.isPresent()) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Report job not found");
+                     return ResponseEntity.status(404).body(response);
+              }
+
+              response.put(SUCCESS, true);
+              response.put("job", describeJob(job.get()));
+              return ResponseEntity.ok(response);
+       }
+
+       // Returns 202 with the job status while the report is still being computed
+       @GetMapping("/jobs/{id}/result")
+       public ResponseEntity<Map<String, Object>> getReportJobResult(@PathVariable String id, HttpSession session) {
+              if (!isAuthenticated(session)) {
+                     return ResponseEntity.status(401).build();
+              }
+
+              Map<String, Object> response = new HashMap<>();
+              Optional<ReportJob> job = reportJobService.find(id, (String) session.getAttribute(AUTHENTICATED_USER));
+              if (!job.isPresent()) {
+                     response.put(SUCCESS, false);
+                     response.put(MESSAGE, "Report job not found");
+                     return ResponseEntity.status(404).body(response);
+              }
+
+              switch (job.get().getStatus()) {
+                     case COMPLETED:
+                            response.put(SUCCESS, true);
+                            response.put("job", describeJob(job.get()));
+                            response.put("report", job.get().getResult());
+                            return ResponseEntity.ok(response);
+                     case FAILED:
+                            response.put(SUCCESS, false);
+                            response.put("job", describeJob(job.get()));
+                            response.put(MESSAGE, "Error generating report: " + job.get().getError());
+                            return ResponseEntity.internalServerError().body(response);
                      default:
-                            return DateTimeFormatter.ofPattern("yyyy-MM-dd");
+                            response.put(SUCCESS, false);
+                            response.put("job", describeJob(job.get()));
+                            response.put(MESSAGE, "Report is not ready yet");
+                            return ResponseEntity.accepted().body(response);
               }
        }
-}
\ No newline at end of file
+
+       // Helper method to describe a report job without its result
+       private Map<String, Object> describeJob(ReportJob job) {
+              Map<String, Object> data = new HashMap<>();
+              data.put("id", job.getId());
+              data.put("type", job.getReportType());
+              data.put("description", job.getDescription());
+              data.put("status", job.getStatus());
+              data.put("stage", job.getStage());
+              data.put("progress", job.getProgress());
+              data.put("submittedAt", job.getSubmittedAt());
+              data.put("startedAt", job.getStartedAt());
+              data.put("finishedAt", job.getFinishedAt());
+              return data;
+       }
+
+       // Helper method to describe a snapshot without its content
+       private Map<String, Object> describeSnapshot(Report snapshot) {
+              Map<String, Object> data = new HashMap<>();
+              data.put("id", snapshot.getId());
+              data.put("type", snapshot.getReportType());
+              data.put("startDate", snapshot.getPeriodStart());
+              data.put("endDate", snapshot.getPeriodEnd());
+              data.put("parameters", snapshot.getParameters());
+              data.put("generatedAt", snapshot.getGeneratedAt());
+              data.put("contentLength", snapshot.getContentLength());
+              return data;
+       }
+
+       // Helper method to read a report start date; defaults to a month ago
+       private LocalDate startOf(String startDate) {
+              return startDate != null ? LocalDate.parse(startDate) : LocalDate.now().minusMonths(1);
+       }
+
+       // Helper method to read a report end date; defaults to today, whole days keep the cache key stable
+       private LocalDate endOf(String endDate) {
+              return endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+       }
+
+       // Helper method to serve a date-range report from the cache, then the snapshot store for closed
+       // periods, and only then the database
+       private Map<String, Object> dateRangeReport(String reportType, LocalDate start, LocalDate end,
+                     String category, RevenueReportRepository.Period period, HttpSession session) {
+              return dateRangeReport(reportType, start, end, category, period,
+                            (String) session.getAttribute(AUTHENTICATED_USER));
+       }
+
+       private Map<String, Object> dateRangeReport(String reportType, LocalDate start, LocalDate end,
+                     String category, RevenueReportRepository.Period period, String username) {
+              String parameters = parametersFor(reportType, category, period);
+              return reportCache.get(reportType, sourcesOf(reportType),
+                            () -> snapshotService.getOrCompute(reportType, start, end, parameters, username,
+                                          builderFor(reportType, start, end, category, period)),
+                            start, end, parameters);
+       }
+
+       // Helper method to describe the filters of a date-range report, e.g. "groupBy=weekly"
+       private String parametersFor(String reportType, String category, RevenueReportRepository.Period period) {
+              switch (reportType) {
+                     case "sales":
+                            return category != null && !category.trim().isEmpty()
+                                          ? "category=" + category.trim().toLowerCase() : "";
+                     case "revenue":
+                            return "groupBy=" + (period != null ? period : RevenueReportRepository.Period.DAILY)
+                                          .name().toLowerCase();
+                     default:
+                            return "";
+              }
+       }
+
+       // Helper method to list the data a date-range report is built from
+       private Set<ReportCache.Source> sourcesOf(String reportType) {
+              switch (reportType) {
+                     case "sales":
+                            return EnumSet.of(ReportCache.Source.ORDERS);
+                     case "financial-summary":
+                            return EnumSet.of(ReportCache.Source.ORDERS, ReportCache.Source.TRANSACTIONS);
+                     default:
+                            return EnumSet.of(ReportCache.Source.TRANSACTIONS);
+              }
+       }
+
+       // Helper method to pick the builder of a date-range report; null for report types that are not date ranges
+       private Supplier<Map<String, Object>> builderFor(String reportType, LocalDate start, LocalDate end,
+                     String category, RevenueReportRepository.Period period) {
+              LocalDateTime from = start.atStartOfDay();
+              LocalDateTime to = end.atTime(23, 59, 59);
+              switch (reportType) {
+                     case "sales":
+                            return () -> buildSalesReport(start, end, category);
+                     case "revenue":
+                            return () -> buildRevenueAnalysis(from, to,
+                                          period != null ? period : RevenueReportRepository.Period.DAILY);
+                     case "transaction-summary":
+                            return () -> buildTransactionSummary(from, to);
+                     case "financial-summary":
+                            return () -> buildFinancialSummary(from, to);
+                     default:
+                            return null;
+              }
+       }
+
+       // Helper method to build the sales report from the daily rollups
+       private Map<String, Object> buildSalesReport(LocalDate start, LocalDate end, String category) {
+              // One row per category over the range, read from the daily rollups
+              Map<String, BigDecimal> salesByCategory = new HashMap<>();
+              BigDecimal totalSales = BigDecimal.ZERO;
+              long totalOrders = 0;
+              for (Object[] row : dailyCategorySalesRepository.sumByCategory(start, end)) {
+                     String cat = (String) row[0];
+                     BigDecimal revenue = (BigDecimal) row[2];
+
+                     // Filter by category if specified
+                     if (category == null || category.isEmpty()) {
+                            salesByCategory.put(cat, revenue);
+                     } else if (cat.equalsIgnoreCase(category)) {
+                            salesByCategory.put(cat, revenue);
+                            totalSales = revenue;
+                            totalOrders = ((Number) row[3]).longValue();
+                     }
+              }
+
+              // Day totals count an order spanning several categories once
+              if (category == null || category.isEmpty()) {
+                     Object[] totals = dailySalesRepository.sumBetween(start, end).get(0);
+                     totalOrders = ((Number) totals[0]).longValue();
+                     totalSales = (BigDecimal) totals[1];
+              }
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalSales", totalSales);
+              reportData.put("totalOrders", totalOrders);
+              reportData.put("salesByCategory", salesByCategory);
+              reportData.put("startDate", start.atStartOfDay());
+              reportData.put("endDate", end.atTime(23, 59, 59));
+              return reportData;
+       }
+
+       // Helper method to build the revenue analysis from database-side buckets
+       private Map<String, Object> buildRevenueAnalysis(LocalDateTime start, LocalDateTime end,
+                     RevenueReportRepository.Period period) {
+              // One row per time period, bucketed by the database
+              Map<String, BigDecimal> revenueByPeriod = new TreeMap<>();
+              Map<String, BigDecimal> refundsByPeriod = new TreeMap<>();
+              BigDecimal totalRevenue = BigDecimal.ZERO;
+              BigDecimal totalRefunds = BigDecimal.ZERO;
+              for (Object[] row : transactionRepository.sumCompletedByPeriod(period, start, end)) {
+                     String label = (String) row[0];
+                     BigDecimal revenue = (BigDecimal) row[1];
+                     BigDecimal refunds = (BigDecimal) row[2];
+                     revenueByPeriod.put(label, revenue);
+                     refundsByPeriod.put(label, refunds);
+                     totalRevenue = totalRevenue.add(revenue);
+                     totalRefunds = totalRefunds.add(refunds);
+              }
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalRevenue", totalRevenue);
+              reportData.put("totalRefunds", totalRefunds);
+              reportData.put("netRevenue", totalRevenue.subtract(totalRefunds));
+              reportData.put("revenueByPeriod", revenueByPeriod);
+              reportData.put("refundsByPeriod", refundsByPeriod);
+              reportData.put("groupBy", period.name().toLowerCase());
+              reportData.put("startDate", start);
+              reportData.put("endDate", end);
+              return reportData;
+       }
+
+       // Helper method to build the inventory summary
+       private Map<String, Object> buildInventoryReport(String category, int threshold) {
+              // One row per category, aggregated by the database
+              List<Object[]> rows = category != null && !category.isEmpty()
+                            ? productRepository.getInventoryStatsForCategory(category, threshold)
+                            : productRepository.getInventoryStatsByCategory(threshold);
+
+              long totalProducts = 0;
+              long totalStock = 0;
+              BigDecimal totalValue = BigDecimal.ZERO;
+              Map<String, Map<String, Object>> categories = new LinkedHashMap<>();
+              for (Object[] row : rows) {
+                     Map<String, Object> categoryData = new HashMap<>();
+                     categoryData.put("productCount", ((Number) row[1]).longValue());
+                     categoryData.put("totalStock", ((Number) row[2]).longValue());
+                     categoryData.put("totalValue", row[3]);
+                     categoryData.put("lowStockProducts", ((Number) row[4]).longValue());
+                     categoryData.put("lowStockUnits", ((Number) row[5]).longValue());
+                     categories.put((String) row[0], categoryData);
+
+                     totalProducts += ((Number) row[1]).longValue();
+                     totalStock += ((Number) row[2]).longValue();
+                     totalValue = totalValue.add((BigDecimal) row[3]);
+              }
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalProducts", totalProducts);
+              reportData.put("totalStock", totalStock);
+              reportData.put("totalInventoryValue", totalValue);
+              reportData.put("lowStockThreshold", threshold);
+              reportData.put("categories", categories);
+              reportData.put("generatedAt", LocalDateTime.now());
+              return reportData;
+       }
+
+       // Helper method to build the low stock alert
+       private Map<String, Object> buildLowStockAlert(Integer threshold) {
+              List<Product> lowStockProducts = threshold != null
+                            ? productRepository.findByStockLessThan(threshold)
+                            : lowStockIndex.findProducts();
+
+              // Group low stock products by category
+              Map<String, List<Map<String, Object>>> lowStockByCategory = lowStockProducts.stream()
+                            .collect(Collectors.groupingBy(
+                                          product -> product.getCategory().getName(),
+                                          Collectors.mapping(
+                                                        product -> {
+                                                               Map<String, Object> productData = new HashMap<>();
+                                                               productData.put("id", product.getId());
+                                                               productData.put("name", product.getName());
+                                                               productData.put("stock",
+                                                                             product.getStockQuantity());
+                                                               productData.put("threshold", threshold != null
+                                                                             ? threshold : product.getReorderLevel());
+                                                               return productData;
+                                                        },
+                                                        Collectors.toList())));
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalLowStockProducts", lowStockProducts.size());
+              reportData.put("threshold", threshold != null ? threshold : "reorderLevel");
+              reportData.put("lowStockByCategory", lowStockByCategory);
+              reportData.put("generatedAt", LocalDateTime.now());
+              return reportData;
+       }
+
+       // Helper method to build the transaction summary for a date range
+       private Map<String, Object> buildTransactionSummary(LocalDateTime start, LocalDateTime end) {
+              List<Transaction> transactions = transactionRepository.findByDateRange(start, end);
+
+              // Calculate transaction metrics
+              long totalTransactions = transactions.size();
+
+              // Group by transaction type
+              Map<Transaction.TransactionType, List<Transaction>> byType = transactions.stream()
+                            .collect(Collectors.groupingBy(Transaction::getTransactionType));
+
+              // Group by payment method
+              Map<Transaction.PaymentMethod, List<Transaction>> byPaymentMethod = transactions.stream()
+                            .collect(Collectors.groupingBy(Transaction::getPaymentMethod));
+
+              // Calculate totals by type
+              Map<String, BigDecimal> totalsByType = new HashMap<>();
+              byType.forEach((type, txList) -> {
+                     BigDecimal total = txList.stream()
+                                   .map(Transaction::getAmount)
+                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+                     totalsByType.put(type.toString(), total);
+              });
+
+              // Calculate totals by payment method
+              Map<String, BigDecimal> totalsByPaymentMethod = new HashMap<>();
+              byPaymentMethod.forEach((method, txList) -> {
+                     BigDecimal total = txList.stream()
+                                   .map(Transaction::getAmount)
+                                   .reduce(BigDecimal.ZERO, BigDecimal::add);
+                     totalsByPaymentMethod.put(method.toString(), total);
+              });
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalTransactions", totalTransactions);
+              reportData.put("totalsByType", totalsByType);
+              reportData.put("totalsByPaymentMethod", totalsByPaymentMethod);
+              reportData.put("startDate", start);
+              reportData.put("endDate", end);
+              return reportData;
+       }
+
+       // Helper method to build the financial summary for a date range
+       private Map<String, Object> buildFinancialSummary(LocalDateTime start, LocalDateTime end) {
+              // Get orders and transactions for the period
+              List<Order> orders = orderRepository.findByDateRange(start, end);
+              List<Transaction> transactions = transactionRepository.findByDateRange(start, end);
+
+              // Calculate revenue metrics
+              BigDecimal totalRevenue = transactions.stream()
+                            .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
+                            .map(Transaction::getAmount)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+              BigDecimal totalRefunds = transactions.stream()
+                            .filter(t -> t.getTransactionType() == Transaction.TransactionType.REFUND)
+                            .map(Transaction::getAmount)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+              BigDecimal netRevenue = totalRevenue.subtract(totalRefunds);
+
+              // Calculate order metrics
+              long totalOrders = orders.size();
+              BigDecimal averageOrderValue = totalOrders > 0
+                            ? totalRevenue.divide(new BigDecimal(totalOrders), 2, BigDecimal.ROUND_HALF_UP)
+                            : BigDecimal.ZERO;
+
+              // Create report data
+              Map<String, Object> reportData = new HashMap<>();
+              reportData.put("totalRevenue", totalRevenue);
+              reportData.put("totalRefunds", totalRefunds);
+              reportData.put("netRevenue", netRevenue);
+              reportData.put("totalOrders", totalOrders);
+              reportData.put("averageOrderValue", averageOrderValue);
+              reportData.put("startDate", start);
+              reportData.put("endDate", end);
+              return reportData;
+       }
+}
@@ -1,16 +1,18 @@
 package com.springweb.controller;
 
 import com.springweb.entity.Order;
-import com.springweb.entity.OrderItem;
-import com.springweb.entity.Product;
 import com.springweb.repository.OrderRepository;
-import com.springweb.repository.ProductRepository;
+import com.springweb.service.InsufficientStockException;
+import com.springweb.service.OrderChangedEvent;
+import com.springweb.service.OrderService;
+import com.springweb.service.ProductNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -23,7 +25,13 @@ public class SimpleOrderController {
        private OrderRepository orderRepository;
 
        @Autowired
-       private ProductRepository productRepository;
+       private OrderService orderService;
+
+       @Autowired
+       private ApplicationEventPublisher eventPublisher;
+
+       @Autowired
+       private TransactionTemplate transactionTemplate;
 
        // Helper method to check authentication
        private boolean isAuthenticated(HttpSession session) {
@@ -35,7 +43,7 @@ public class SimpleOrderController {
               if (!isAuthenticated(session)) {
                      return ResponseEntity.status(401).build();
               }
-              return ResponseEntity.ok(orderRepository.findAll());
+              return ResponseEntity.ok(orderRepository.findAllForListView());
        }
 
        @GetMapping("/{id}")
@@ -44,7 +52,7 @@ public class SimpleOrderController {
                      return ResponseEntity.status(401).build();
               }
 
-              Optional<Order> order = orderRepository.findById(id);
+              Optional<Order> order = orderRepository.findByIdWithItems(id);
               return order.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
        }
 
@@ -66,50 +74,35 @@ public class SimpleOrderController {
                             return ResponseEntity.badRequest().body(response);
                      }
 
-                     Order order = new Order();
-                     List<OrderItem> orderItems = new ArrayList<>();
-                     BigDecimal totalAmount = BigDecimal.ZERO;
-
-                     for (Map<String, Object> itemData : orderItemsData) {
-                            Long productId = Long.valueOf(itemData.get("productId").toString());
-                            Integer quantity = Integer.valueOf(itemData.get("quantity").toString());
-
-                            Optional<Product> productOpt = productRepository.findById(productId);
-                            if (!productOpt.isPresent()) {
-                                   response.put("success", false);
-                                   response.put("message", "Product not found: " + productId);
-                                   return ResponseEntity.badRequest().body(response);
-                            }
-
-                            Product product = productOpt.get();
-                            if (product.getStockQuantity() < quantity) {
-                                   response.put("success", false);
-                                   response.put("message", "Insufficient stock for product: " + product.getName());
-                                   return ResponseEntity.badRequest().body(response);
+                     List<OrderService.OrderLine> lines = new ArrayList<>();
+                     try {
+                            for (Map<String, Object> itemData : orderItemsData) {
+                                   Long productId = Long.valueOf(itemData.get("productId").toString());
+                                   Integer quantity = Integer.valueOf(itemData.get("quantity").toString());
+                                   lines.add(new OrderService.OrderLine(productId, quantity));
                             }
-
-                            OrderItem orderItem = new OrderItem();
-                            orderItem.setProduct(product);
-                            orderItem.setQuantity(quantity);
-                            orderItem.setUnitPrice(product.getPrice());
-                            orderItem.setOrder(order);
-
-                            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
-                            totalAmount = totalAmount.add(itemTotal);
-
-                            // Update stock
-                            product.setStockQuantity(product.getStockQuantity() - quantity);
-                            productRepository.save(product);
-
-                            orderItems.add(orderItem);
+                     } catch (IllegalArgumentException e) {
+                            response.put("success", false);
+                            response.put("message", "Invalid order item: " + e.getMessage());
+                            return ResponseEntity.badRequest().body(response);
                      }
 
-                     order.setOrderItems(orderItems);
-                     order.setTotalAmount(totalAmount);
+                     Order order = new Order();
                      order.setStatus(Order.OrderStatus.PENDING);
                      order.setPlacedAt(LocalDateTime.now());
 
-                     Order savedOrder = orderRepository.save(order);
+                     Order savedOrder;
+                     try {
+                            savedOrder = orderService.placeOrder(order, lines);
+                     } catch (ProductNotFoundException e) {
+                            response.put("success", false);
+                            response.put("message", "Product not found: " + e.getProductId());
+                            return ResponseEntity.badRequest().body(response);
+                     } catch (InsufficientStockException e) {
+                            response.put("success", false);
+                            response.put("message", "Insufficient stock for product: " + e.getProductNames().get(0));
+                            return ResponseEntity.badRequest().body(response);
+                     }
 
                      response.put("success", true);
                      response.put("message", "Order created successfully");
@@ -154,7 +147,11 @@ public class SimpleOrderController {
                      }
 
                      order.setStatus(orderStatus);
-                     orderRepository.save(order);
+                     transactionTemplate.executeWithoutResult(status -> {
+                            orderRepository.save(order);
+                            eventPublisher.publishEvent(new OrderChangedEvent(order.getId(), order.getPlacedAt(),
+                                          OrderChangedEvent.ChangeType.STATUS_CHANGED, order.getStatus()));
+                     });
 
                      response.put("success", true);
                      response.put("message", "Order status updated successfully");
@@ -176,13 +173,18 @@ public class SimpleOrderController {
 
               Map<String, Object> response = new HashMap<>();
               try {
-                     if (!orderRepository.existsById(id)) {
+                     Optional<Order> orderOpt = orderRepository.findById(id);
+                     if (!orderOpt.isPresent()) {
                             response.put("success", false);
                             response.put("message", "Order not found");
                             return ResponseEntity.status(404).body(response);
                      }
 
-                     orderRepository.deleteById(id);
+                     transactionTemplate.executeWithoutResult(status -> {
+                            orderRepository.deleteById(id);
+                            eventPublisher.publishEvent(new OrderChangedEvent(id, orderOpt.get().getPlacedAt(),
+                                          OrderChangedEvent.ChangeType.DELETED));
+                     });
 
                      response.put("success", true);
                      response.put("message", "Order deleted successfully");
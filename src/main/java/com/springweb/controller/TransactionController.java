@@ -4,13 +4,25 @@ import com.springweb.entity.Order;
 import com.springweb.entity.Transaction;
 import com.springweb.repository.OrderRepository;
 import com.springweb.repository.TransactionRepository;
+import com.springweb.repository.TransactionSpecifications;
+import com.springweb.service.CsvExportService;
+import com.springweb.service.KeysetCursor;
+import com.springweb.service.OptimisticRetryExecutor;
+import com.springweb.service.ReferenceNumberGenerator;
+import com.springweb.service.TransactionChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.servlet.http.HttpSession;
 
 import java.math.BigDecimal;
@@ -19,6 +31,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -28,6 +41,7 @@ public class TransactionController {
     private static final String AUTHENTICATED_USER = "authenticatedUser";
     private static final String SUCCESS = "success";
     private static final String MESSAGE = "message";
+    private static final int MAX_FEED_SIZE = 200;
 
     @Autowired
     private TransactionRepository transactionRepository;
@@ -35,14 +49,92 @@ public class TransactionController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+
+    @Autowired
+    private ReferenceNumberGenerator referenceNumberGenerator;
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     // Helper method to check authentication
     private boolean isAuthenticated(HttpSession session) {
         return session.getAttribute(AUTHENTICATED_USER) != null;
     }
 
+    // Helper method to record a transaction change; call it inside the transaction of the change
+    private void publishChange(Transaction transaction, TransactionChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new TransactionChangedEvent(transaction.getId(), transaction.getTransactionDate(),
+                changeType, transaction.getTransactionStatus()));
+    }
+
+    // Helper method to save a transaction and record the change in one database transaction
+    private Transaction saveAndPublish(Transaction transaction, TransactionChangedEvent.ChangeType changeType) {
+        return transactionTemplate.execute(status -> {
+            Transaction savedTransaction = transactionRepository.save(transaction);
+            publishChange(savedTransaction, changeType);
+            return savedTransaction;
+        });
+    }
+
+    // Helper method to build the response for an edit made from an outdated copy of the transaction
+    private ResponseEntity<Map<String, Object>> conflictResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put(SUCCESS, false);
+        response.put(MESSAGE, "The transaction was changed by another user, please reload and try again");
+        return ResponseEntity.status(409).body(response);
+    }
+
+    // Helper method to refuse an edit whose submitted version is not the one just read; null when it may proceed
+    private ResponseEntity<Map<String, Object>> rejectStaleVersion(Object submittedVersion, Long currentVersion) {
+        if (submittedVersion == null || submittedVersion.toString().trim().isEmpty()) {
+            return null;
+        }
+        try {
+            if (Long.valueOf(submittedVersion.toString().trim()).equals(currentVersion)) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Invalid version format");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return conflictResponse();
+    }
+
+    // Helper method to run an update with retries when another user saved the same transaction first
+    private ResponseEntity<Map<String, Object>> withConflictRetry(String operation,
+            Supplier<ResponseEntity<Map<String, Object>>> mutation) {
+        try {
+            return retryExecutor.execute(operation, mutation);
+        } catch (OptimisticLockingFailureException e) {
+            return conflictResponse();
+        }
+    }
+
+    // Helper method to read an optional enum filter, ignoring blank and unknown values
+    private <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     // Helper method to generate transaction number
     private String generateTransactionNumber() {
-        return "TXN" + System.currentTimeMillis();
+        return referenceNumberGenerator.next("TXN");
     }
 
     @GetMapping
@@ -63,63 +155,29 @@ public class TransactionController {
 
         Map<String, Object> response = new HashMap<>();
         try {
-            Sort sort = sortDir.equalsIgnoreCase("desc")
-                    ? Sort.by(sortBy).descending()
-                    : Sort.by(sortBy).ascending();
-
-            if (page == -1) {
-                // Return all transactions without pagination
-                List<Transaction> transactions = transactionRepository.findAll(sort);
-
-                // Apply filters
-                if (search != null && !search.trim().isEmpty()) {
-                    transactions = transactions.stream()
-                            .filter(tx -> tx.getTransactionNumber().toLowerCase().contains(search.toLowerCase()) ||
-                                    (tx.getDescription() != null
-                                            && tx.getDescription().toLowerCase().contains(search.toLowerCase())))
-                            .toList();
-                }
-
-                if (status != null && !status.trim().isEmpty()) {
-                    try {
-                        Transaction.TransactionStatus txStatus = Transaction.TransactionStatus
-                                .valueOf(status.toUpperCase());
-                        transactions = transactions.stream()
-                                .filter(tx -> tx.getStatus() == txStatus)
-                                .toList();
-                    } catch (IllegalArgumentException ignored) {
-                    }
-                }
-
-                if (type != null && !type.trim().isEmpty()) {
-                    try {
-                        Transaction.TransactionType targetType = Transaction.TransactionType
-                                .valueOf(type.toUpperCase());
-                        transactions = transactions.stream()
-                                .filter(tx -> tx.getTransactionType().equals(targetType))
-                                .toList();
-                    } catch (IllegalArgumentException ignored) {
-                        // Invalid transaction type, filter will return empty result
-                    }
-                }
+            Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort sort = Sort.by(direction, sortBy);
+            if (!"id".equals(sortBy)) {
+                // Keeps rows with equal sort keys from moving between pages
+                sort = sort.and(Sort.by(direction, "id"));
+            }
 
-                if (paymentMethod != null && !paymentMethod.trim().isEmpty()) {
-                    try {
-                        Transaction.PaymentMethod txPayment = Transaction.PaymentMethod
-                                .valueOf(paymentMethod.toUpperCase());
-                        transactions = transactions.stream()
-                                .filter(tx -> tx.getPaymentMethod() == txPayment)
-                                .toList();
-                    } catch (IllegalArgumentException ignored) {
-                    }
-                }
+            // Every filter runs in the database; unknown enum values are ignored
+            Specification<Transaction> specification = TransactionSpecifications.matchesSearch(search)
+                    .and(TransactionSpecifications.hasStatus(parseEnum(Transaction.TransactionStatus.class, status)))
+                    .and(TransactionSpecifications.hasType(parseEnum(Transaction.TransactionType.class, type)))
+                    .and(TransactionSpecifications.hasPaymentMethod(
+                            parseEnum(Transaction.PaymentMethod.class, paymentMethod)));
 
+            if (page == -1) {
+                // Return all matching transactions without pagination
+                List<Transaction> transactions = transactionRepository.findAll(specification, sort);
                 response.put(SUCCESS, true);
                 response.put("transactions", transactions);
             } else {
                 // Return paginated results
                 Pageable pageable = PageRequest.of(page, size, sort);
-                Page<Transaction> transactionPage = transactionRepository.findAll(pageable);
+                Page<Transaction> transactionPage = transactionRepository.findAll(specification, pageable);
 
                 response.put(SUCCESS, true);
                 response.put("transactions", transactionPage.getContent());
@@ -136,6 +194,63 @@ public class TransactionController {
         }
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<Map<String, Object>> getTransactionFeed(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size,
+            HttpSession session) {
+
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            int windowSize = Math.max(1, Math.min(size, MAX_FEED_SIZE));
+
+            // One extra row tells whether another window follows
+            Pageable window = PageRequest.of(0, windowSize + 1);
+            List<Transaction> transactions = cursor == null
+                    ? transactionRepository.findFeed(window)
+                    : transactionRepository.findFeedAfter(cursor.getTimestamp(), cursor.getId(), window);
+
+            boolean hasMore = transactions.size() > windowSize;
+            String nextCursor = null;
+            if (hasMore) {
+                transactions = transactions.subList(0, windowSize);
+                Transaction last = transactions.get(windowSize - 1);
+                nextCursor = new KeysetCursor(last.getTransactionDate(), last.getId()).encode();
+            }
+
+            response.put(SUCCESS, true);
+            response.put("transactions", transactions);
+            response.put("hasMore", hasMore);
+            response.put("nextCursor", nextCursor);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Invalid cursor: " + after);
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Error fetching transactions: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Full history as CSV, written while it is read from the database
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(HttpSession session) {
+        if (!isAuthenticated(session)) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(CsvExportService.TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, CsvExportService.attachment("transactions"))
+                .body(csvExportService.exportTransactions());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getTransactionById(@PathVariable Long id, HttpSession session) {
         if (!isAuthenticated(session)) {
@@ -264,7 +379,7 @@ public class TransactionController {
             transaction.setCreatedAt(LocalDateTime.now());
             transaction.setUpdatedAt(LocalDateTime.now());
 
-            Transaction savedTransaction = transactionRepository.save(transaction);
+            Transaction savedTransaction = saveAndPublish(transaction, TransactionChangedEvent.ChangeType.CREATED);
 
             // Create success response with transaction details
             response.put(SUCCESS, true);
@@ -282,6 +397,11 @@ public class TransactionController {
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateTransaction(@PathVariable Long id,
             @RequestBody Map<String, Object> transactionData, HttpSession session) {
+        return withConflictRetry("transaction.update", () -> applyTransactionUpdate(id, transactionData, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyTransactionUpdate(Long id,
+            Map<String, Object> transactionData, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -296,6 +416,11 @@ public class TransactionController {
             }
 
             Transaction existingTransaction = optionalTransaction.get();
+            ResponseEntity<Map<String, Object>> stale = rejectStaleVersion(transactionData.get("version"),
+                    existingTransaction.getVersion());
+            if (stale != null) {
+                return stale;
+            }
 
             // Update amount if provided
             Object amountObj = transactionData.get("amount");
@@ -350,13 +475,17 @@ public class TransactionController {
 
             existingTransaction.setUpdatedAt(LocalDateTime.now());
 
-            Transaction savedTransaction = transactionRepository.save(existingTransaction);
+            Transaction savedTransaction = saveAndPublish(existingTransaction,
+                    TransactionChangedEvent.ChangeType.UPDATED);
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Transaction updated successfully");
             response.put("transaction", savedTransaction);
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error updating transaction: " + e.getMessage());
@@ -367,6 +496,11 @@ public class TransactionController {
     @PutMapping("/{id}/status")
     public ResponseEntity<Map<String, Object>> updateTransactionStatus(@PathVariable Long id,
             @RequestBody Map<String, String> statusData, HttpSession session) {
+        return withConflictRetry("transaction.status", () -> applyTransactionStatusUpdate(id, statusData, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyTransactionStatusUpdate(Long id,
+            Map<String, String> statusData, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
@@ -380,6 +514,12 @@ public class TransactionController {
                 return ResponseEntity.status(404).body(response);
             }
 
+            ResponseEntity<Map<String, Object>> stale = rejectStaleVersion(statusData.get("version"),
+                    optionalTransaction.get().getVersion());
+            if (stale != null) {
+                return stale;
+            }
+
             String statusStr = statusData.get("status");
             if (statusStr == null || statusStr.trim().isEmpty()) {
                 response.put(SUCCESS, false);
@@ -405,7 +545,8 @@ public class TransactionController {
                     }
                 }
 
-                Transaction savedTransaction = transactionRepository.save(existingTransaction);
+                Transaction savedTransaction = saveAndPublish(existingTransaction,
+                        TransactionChangedEvent.ChangeType.STATUS_CHANGED);
 
                 response.put(SUCCESS, true);
                 response.put(MESSAGE, "Transaction status updated successfully");
@@ -418,6 +559,9 @@ public class TransactionController {
                 return ResponseEntity.badRequest().body(response);
             }
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error updating transaction status: " + e.getMessage());
@@ -427,24 +571,35 @@ public class TransactionController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteTransaction(@PathVariable Long id, HttpSession session) {
+        return withConflictRetry("transaction.delete", () -> applyTransactionDelete(id, session));
+    }
+
+    private ResponseEntity<Map<String, Object>> applyTransactionDelete(Long id, HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
 
         Map<String, Object> response = new HashMap<>();
         try {
-            if (!transactionRepository.existsById(id)) {
+            Optional<Transaction> transaction = transactionRepository.findById(id);
+            if (!transaction.isPresent()) {
                 response.put(SUCCESS, false);
                 response.put(MESSAGE, "Transaction not found");
                 return ResponseEntity.status(404).body(response);
             }
 
-            transactionRepository.deleteById(id);
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionRepository.deleteById(id);
+                publishChange(transaction.get(), TransactionChangedEvent.ChangeType.DELETED);
+            });
 
             response.put(SUCCESS, true);
             response.put(MESSAGE, "Transaction deleted successfully");
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            // Retried by withConflictRetry
+            throw e;
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error deleting transaction: " + e.getMessage());
@@ -583,46 +738,67 @@ public class TransactionController {
     }
 
     @GetMapping("/statistics")
-    public ResponseEntity<Map<String, Object>> getTransactionStatistics(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getTransactionStatistics(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            HttpSession session) {
         if (!isAuthenticated(session)) {
             return ResponseEntity.status(401).build();
         }
 
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Transaction> allTransactions = transactionRepository.findAll();
+            // One GROUP BY over status and type; everything below is derived from its few rows
+            List<Object[]> rows;
+            if (startDate != null || endDate != null) {
+                LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00")
+                        : LocalDateTime.of(1970, 1, 1, 0, 0);
+                LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59")
+                        : LocalDateTime.now();
+                rows = transactionRepository.summarizeByStatusAndType(start, end);
+            } else {
+                rows = transactionRepository.summarizeByStatusAndType();
+            }
 
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalTransactions", allTransactions.size());
-
-            // Count by status
-            long pending = allTransactions.stream().filter(t -> "PENDING".equals(t.getTransactionStatus()))
-                    .count();
-            long completed = allTransactions.stream()
-                    .filter(t -> "COMPLETED".equals(t.getTransactionStatus())).count();
-            long failed = allTransactions.stream().filter(t -> "FAILED".equals(t.getTransactionStatus()))
-                    .count();
-            long refunded = allTransactions.stream()
-                    .filter(t -> "REFUNDED".equals(t.getTransactionStatus())).count();
-
-            stats.put("pendingTransactions", pending);
-            stats.put("completedTransactions", completed);
-            stats.put("failedTransactions", failed);
-            stats.put("refundedTransactions", refunded);
-
-            // Calculate totals by type
-            BigDecimal totalSales = allTransactions.stream()
-                    .filter(t -> "SALE".equals(t.getTransactionType())
-                            && "COMPLETED".equals(t.getTransactionStatus()))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal totalRefunds = allTransactions.stream()
-                    .filter(t -> "REFUND".equals(t.getTransactionType())
-                            && "COMPLETED".equals(t.getTransactionStatus()))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            Map<Transaction.TransactionStatus, Long> countByStatus = new EnumMap<>(Transaction.TransactionStatus.class);
+            Map<Transaction.TransactionType, Long> countByType = new EnumMap<>(Transaction.TransactionType.class);
+            Map<Transaction.TransactionType, BigDecimal> completedAmountByType = new EnumMap<>(
+                    Transaction.TransactionType.class);
+            long total = 0;
+            for (Object[] row : rows) {
+                Transaction.TransactionStatus rowStatus = (Transaction.TransactionStatus) row[0];
+                Transaction.TransactionType rowType = (Transaction.TransactionType) row[1];
+                long count = ((Number) row[2]).longValue();
+                BigDecimal amount = (BigDecimal) row[3];
+
+                total += count;
+                if (rowStatus != null) {
+                    countByStatus.merge(rowStatus, count, Long::sum);
+                }
+                if (rowType != null) {
+                    countByType.merge(rowType, count, Long::sum);
+                    if (rowStatus == Transaction.TransactionStatus.COMPLETED) {
+                        completedAmountByType.merge(rowType, amount, BigDecimal::add);
+                    }
+                }
+            }
 
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalTransactions", total);
+            stats.put("pendingTransactions", countByStatus.getOrDefault(Transaction.TransactionStatus.PENDING, 0L));
+            stats.put("completedTransactions",
+                    countByStatus.getOrDefault(Transaction.TransactionStatus.COMPLETED, 0L));
+            stats.put("failedTransactions", countByStatus.getOrDefault(Transaction.TransactionStatus.FAILED, 0L));
+            stats.put("cancelledTransactions",
+                    countByStatus.getOrDefault(Transaction.TransactionStatus.CANCELLED, 0L));
+            stats.put("refundedTransactions", countByStatus.getOrDefault(Transaction.TransactionStatus.REFUNDED, 0L));
+            stats.put("transactionsByType", countByType);
+
+            // Completed payments count as sales, completed refunds are subtracted from them
+            BigDecimal totalSales = completedAmountByType.getOrDefault(Transaction.TransactionType.PAYMENT,
+                    BigDecimal.ZERO);
+            BigDecimal totalRefunds = completedAmountByType.getOrDefault(Transaction.TransactionType.REFUND,
+                    BigDecimal.ZERO);
             stats.put("totalSalesAmount", totalSales);
             stats.put("totalRefundsAmount", totalRefunds);
             stats.put("netRevenue", totalSales.subtract(totalRefunds));
@@ -630,6 +806,10 @@ public class TransactionController {
             response.put(SUCCESS, true);
             response.put("statistics", stats);
             return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            response.put(SUCCESS, false);
+            response.put(MESSAGE, "Invalid date format. Use YYYY-MM-DD");
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put(SUCCESS, false);
             response.put(MESSAGE, "Error fetching transaction statistics: " + e.getMessage());
@@ -8,9 +8,31 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_placed_at_id", columnList = "placed_at, id"),
+        @Index(name = "idx_orders_status_placed_at", columnList = "status, placed_at")
+})
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Order.GRAPH_LIST, attributeNodes = @NamedAttributeNode("user")),
+        @NamedEntityGraph(name = Order.GRAPH_DETAIL, attributeNodes = {
+                @NamedAttributeNode("user"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "items")
+        }, subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product"))),
+        @NamedEntityGraph(name = Order.GRAPH_REPORT, attributeNodes = {
+                @NamedAttributeNode(value = "orderItems", subgraph = "items")
+        }, subgraphs = {
+                @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+                @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("category"))
+        })
+})
 public class Order {
 
+    // Fetch plans: list views join the user and batch-load items, detail views fetch
+    // items with their products, reports walk items down to the product category
+    public static final String GRAPH_LIST = "Order.list";
+    public static final String GRAPH_DETAIL = "Order.detail";
+    public static final String GRAPH_REPORT = "Order.report";
+
     public enum OrderStatus {
         PENDING,
         CONFIRMED,
@@ -23,13 +45,19 @@ public class Order {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id")
+    @TableGenerator(name = "orders_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(name = "order_number", unique = true)
     private String orderNumber;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "password", "roles" })
     private User user;
@@ -65,7 +93,7 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     @JsonIgnoreProperties({ "order", "hibernateLazyInitializer", "handler" })
     private List<OrderItem> orderItems;
 
@@ -119,6 +147,14 @@ public class Order {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getOrderNumber() {
         return orderNumber;
     }
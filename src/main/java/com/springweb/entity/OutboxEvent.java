@@ -0,0 +1,78 @@
+package com.springweb.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A domain event recorded in the same transaction as the change it describes; dispatched by OutboxService
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_pending", columnList = "dispatched_at, id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Simple class name of the event, e.g. OrderChangedEvent
+    @Column(name = "event_type", nullable = false, length = 60)
+    private String eventType;
+
+    // The event as JSON
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Null until every handler has processed the event
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+
+    // Failed deliveries so far
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    // Node dispatching the event, and until when the other nodes leave it to that node
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Default constructor
+    public OutboxEvent() {
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getDispatchedAt() {
+        return dispatchedAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+}
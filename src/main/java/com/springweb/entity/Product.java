@@ -1,22 +1,44 @@
 package com.springweb.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_stock", columnList = "is_active, stock_quantity")
+})
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Product.GRAPH_LIST, attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("supplier")
+        }),
+        @NamedEntityGraph(name = Product.GRAPH_INVENTORY, attributeNodes = @NamedAttributeNode("category"))
+})
 public class Product {
+
+    // Fetch plans: list and detail views show category and supplier, inventory only the category
+    public static final String GRAPH_LIST = "Product.list";
+    public static final String GRAPH_INVENTORY = "Product.inventory";
+
+    // Never serialized: every order line of the product would be loaded with it
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
-    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+    @JsonIgnore
     private java.util.List<OrderItem> orderItems = new java.util.ArrayList<>();
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "products_id")
+    @TableGenerator(name = "products_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "products", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(name = "name", nullable = false, length = 150)
     private String name;
 
@@ -32,14 +54,14 @@ public class Product {
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity = 0;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
-    @JsonIgnoreProperties({ "products" })
+    @JsonIgnoreProperties({ "products", "hibernateLazyInitializer", "handler" })
     private Category category;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "supplier_id")
-    @JsonIgnoreProperties({ "products" })
+    @JsonIgnoreProperties({ "products", "hibernateLazyInitializer", "handler" })
     private Supplier supplier;
 
     @Column(name = "is_active", nullable = false)
@@ -77,6 +99,14 @@ public class Product {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
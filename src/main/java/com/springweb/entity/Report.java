@@ -1,10 +1,14 @@
 package com.springweb.entity;
 
 import jakarta.persistence.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// A report is either free text in content, or a snapshot of a date-range report: gzipped JSON in payload,
+// stored once per type, period and parameters
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", uniqueConstraints = @UniqueConstraint(name = "uk_reports_snapshot",
+              columnNames = { "report_type", "period_start", "period_end", "parameters" }))
 public class Report {
 
        @Id
@@ -24,6 +28,23 @@ public class Report {
        @Column(name = "content", columnDefinition = "TEXT")
        private String content;
 
+       @Column(name = "period_start")
+       private LocalDate periodStart;
+
+       @Column(name = "period_end")
+       private LocalDate periodEnd;
+
+       // Normalized filters, e.g. "groupBy=weekly"; empty when the report has none
+       @Column(name = "parameters", length = 255)
+       private String parameters;
+
+       @Column(name = "payload", columnDefinition = "LONGBLOB")
+       private byte[] payload;
+
+       // Size of the JSON before compression
+       @Column(name = "content_length")
+       private Integer contentLength;
+
        // Default constructor
        public Report() {
        }
@@ -81,6 +102,46 @@ public class Report {
               this.content = content;
        }
 
+       public LocalDate getPeriodStart() {
+              return periodStart;
+       }
+
+       public void setPeriodStart(LocalDate periodStart) {
+              this.periodStart = periodStart;
+       }
+
+       public LocalDate getPeriodEnd() {
+              return periodEnd;
+       }
+
+       public void setPeriodEnd(LocalDate periodEnd) {
+              this.periodEnd = periodEnd;
+       }
+
+       public String getParameters() {
+              return parameters;
+       }
+
+       public void setParameters(String parameters) {
+              this.parameters = parameters;
+       }
+
+       public byte[] getPayload() {
+              return payload;
+       }
+
+       public void setPayload(byte[] payload) {
+              this.payload = payload;
+       }
+
+       public Integer getContentLength() {
+              return contentLength;
+       }
+
+       public void setContentLength(Integer contentLength) {
+              this.contentLength = contentLength;
+       }
+
        @Override
        public String toString() {
               return "Report{" +
@@ -88,6 +149,9 @@ public class Report {
                             ", reportType='" + reportType + '\'' +
                             ", generatedBy=" + (generatedBy != null ? generatedBy.getId() : null) +
                             ", generatedAt=" + generatedAt +
+                            ", periodStart=" + periodStart +
+                            ", periodEnd=" + periodEnd +
+                            ", parameters='" + parameters + '\'' +
                             ", content='" + content + '\'' +
                             '}';
        }
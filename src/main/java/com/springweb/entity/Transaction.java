@@ -7,7 +7,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_date_id", columnList = "transaction_date, id"),
+        @Index(name = "idx_transactions_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_transactions_type_created", columnList = "transaction_type, created_at"),
+        @Index(name = "idx_transactions_payment_created", columnList = "payment_method, created_at"),
+        @Index(name = "idx_transactions_status_date", columnList = "status, transaction_date"),
+        @Index(name = "idx_transactions_status_type", columnList = "status, transaction_type, amount")
+})
 public class Transaction {
 
     public enum PaymentMethod {
@@ -35,9 +42,15 @@ public class Transaction {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transactions_id")
+    @TableGenerator(name = "transactions_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "transactions", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(name = "transaction_number", unique = true)
     private String transactionNumber;
 
@@ -108,6 +121,14 @@ public class Transaction {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTransactionNumber() {
         return transactionNumber;
     }
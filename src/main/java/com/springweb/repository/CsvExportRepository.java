@@ -0,0 +1,20 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Order;
+import com.springweb.entity.Product;
+import com.springweb.entity.Transaction;
+
+import java.util.stream.Stream;
+
+// CSV export reads: every row in id order, read-only and streamed from the driver rather than
+// loaded up front. Call in a transaction and close the stream
+public interface CsvExportRepository {
+
+    Stream<Order> streamOrders();
+
+    // The lazy order is not loaded; only its id is read
+    Stream<Transaction> streamTransactions();
+
+    // Category and supplier joined in, as nothing else may run on the connection while it streams
+    Stream<Product> streamProducts();
+}
@@ -0,0 +1,49 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Order;
+import com.springweb.entity.Product;
+import com.springweb.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+@Repository
+public class CsvExportRepositoryImpl implements CsvExportRepository {
+
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    // MySQL Connector/J streams a result row by row only for a fetch size of Integer.MIN_VALUE, and
+    // the shared connection URL no longer turns on server-side cursors for every statement
+    public CsvExportRepositoryImpl(EntityManager entityManager,
+            @Value("${springweb.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Stream<Order> streamOrders() {
+        return stream("SELECT o FROM Order o ORDER BY o.id", Order.class);
+    }
+
+    @Override
+    public Stream<Transaction> streamTransactions() {
+        return stream("SELECT t FROM Transaction t ORDER BY t.id", Transaction.class);
+    }
+
+    @Override
+    public Stream<Product> streamProducts() {
+        return stream("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier ORDER BY p.id",
+                Product.class);
+    }
+
+    private <T> Stream<T> stream(String jpql, Class<T> type) {
+        return entityManager.createQuery(jpql, type)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
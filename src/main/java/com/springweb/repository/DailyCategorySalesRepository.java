@@ -0,0 +1,20 @@
+package com.springweb.repository;
+
+import com.springweb.entity.DailyCategorySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCategorySalesRepository extends JpaRepository<DailyCategorySales, Long> {
+
+    // Rows of [category name, units, revenue, order count] over the days in range
+    @Query("SELECT c.name, SUM(r.units), SUM(r.revenue), SUM(r.orderCount) FROM DailyCategorySales r " +
+            "JOIN Category c ON c.id = r.categoryId " +
+            "WHERE r.salesDate BETWEEN :startDate AND :endDate GROUP BY c.name")
+    List<Object[]> sumByCategory(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,19 @@
+package com.springweb.repository;
+
+import com.springweb.entity.DailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate>, SalesRollupRepository {
+
+    // A single row of [order count, revenue] over the days in range
+    @Query("SELECT COALESCE(SUM(d.orderCount), 0), COALESCE(SUM(d.revenue), 0) FROM DailySales d " +
+            "WHERE d.salesDate BETWEEN :startDate AND :endDate")
+    List<Object[]> sumBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
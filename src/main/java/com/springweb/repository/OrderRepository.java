@@ -3,6 +3,7 @@ package com.springweb.repository;
 import com.springweb.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,24 +11,35 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
 
+        @EntityGraph(Order.GRAPH_LIST)
         List<Order> findByStatus(Order.OrderStatus status);
 
+        @EntityGraph(Order.GRAPH_LIST)
         Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
 
+        @EntityGraph(Order.GRAPH_LIST)
         List<Order> findByCustomerNameContainingIgnoreCase(String customerName);
 
+        @EntityGraph(Order.GRAPH_DETAIL)
         Optional<Order> findByOrderNumber(String orderNumber);
 
         @Query("SELECT o FROM Order o WHERE o.placedAt BETWEEN :startDate AND :endDate")
         List<Order> findByDateRange(@Param("startDate") LocalDateTime startDate,
                         @Param("endDate") LocalDateTime endDate);
 
+        // Report view: items, products and categories in one query
+        @EntityGraph(Order.GRAPH_REPORT)
+        @Query("SELECT o FROM Order o WHERE o.placedAt BETWEEN :startDate AND :endDate")
+        List<Order> findReportByDateRange(@Param("startDate") LocalDateTime startDate,
+                        @Param("endDate") LocalDateTime endDate);
+
         @Query("SELECT o FROM Order o WHERE o.placedAt BETWEEN :startDate AND :endDate")
         Page<Order> findByDateRange(@Param("startDate") LocalDateTime startDate,
                         @Param("endDate") LocalDateTime endDate,
@@ -54,6 +66,10 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status != 'CANCELLED'")
         BigDecimal sumTotalRevenue();
 
+        // Rows of [status, count, total amount], one per status that occurs
+        @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+        List<Object[]> summarizeByStatus();
+
         @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status != 'CANCELLED' AND o.placedAt BETWEEN :startDate AND :endDate")
         BigDecimal sumRevenueByDateRange(@Param("startDate") LocalDateTime startDate,
                         @Param("endDate") LocalDateTime endDate);
@@ -63,19 +79,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         List<Order> searchOrders(@Param("query") String query);
 
         // Orders with their items for detailed view
-        @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id = :id")
+        @EntityGraph(Order.GRAPH_DETAIL)
+        @Query("SELECT o FROM Order o WHERE o.id = :id")
         Optional<Order> findByIdWithItems(@Param("id") Long id);
 
-        @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH o.user LEFT JOIN FETCH oi.product")
-        List<Order> findAllWithItems();
+        // Second phase of paged lists: items and products for the ids of one page, in no particular order
+        @EntityGraph(Order.GRAPH_DETAIL)
+        @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+        List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+        @EntityGraph(Order.GRAPH_LIST)
+        @Query("SELECT o FROM Order o")
+        List<Order> findAllForListView();
+
+        // Newest-first feed; the pageable only limits the window, both queries seek on (placedAt, id)
+        @Query("SELECT o.id FROM Order o ORDER BY o.placedAt DESC, o.id DESC")
+        List<Long> findFeedIds(Pageable window);
 
-        @Query(value = "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH o.user LEFT JOIN FETCH oi.product", countQuery = "SELECT COUNT(DISTINCT o) FROM Order o")
-        Page<Order> findAllWithItemsPaged(Pageable pageable);
+        @Query("SELECT o.id FROM Order o " +
+                        "WHERE o.placedAt < :placedAt OR (o.placedAt = :placedAt AND o.id < :id) " +
+                        "ORDER BY o.placedAt DESC, o.id DESC")
+        List<Long> findFeedIdsAfter(@Param("placedAt") LocalDateTime placedAt, @Param("id") Long id,
+                        Pageable window);
 
-        @Query("SELECT DISTINCT o FROM Order o " +
-                        "LEFT JOIN FETCH o.orderItems oi " +
-                        "LEFT JOIN FETCH o.user " +
-                        "LEFT JOIN FETCH oi.product " +
-                        "WHERE o.customerName LIKE %:search% OR o.customerEmail LIKE %:search% OR o.orderNumber LIKE %:search%")
-        List<Order> findAllWithSearch(@Param("search") String search);
+        // Start of the sales rollup backfill
+        @Query("SELECT MIN(o.placedAt) FROM Order o")
+        LocalDateTime findEarliestPlacedAt();
 }
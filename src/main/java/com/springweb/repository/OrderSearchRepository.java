@@ -0,0 +1,14 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+// First phase of paged order lists: filter, sort and page on order ids only, so the database never
+// pages a fetch-joined collection
+public interface OrderSearchRepository {
+
+    // Ids of one page in sort order; the count query only runs when the page size does not settle the total
+    Page<Long> findIdPage(Specification<Order> specification, Pageable pageable);
+}
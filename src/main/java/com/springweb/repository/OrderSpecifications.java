@@ -0,0 +1,29 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+// Filters for the order list; each one matches everything when its value is missing
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> hasStatus(Order.OrderStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    // Customer name, customer email or order number contains the text, ignoring case
+    public static Specification<Order> matchesSearch(String search) {
+        return (root, query, cb) -> {
+            if (search == null || search.trim().isEmpty()) {
+                return null;
+            }
+            String pattern = "%" + search.trim().toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("customerName")), pattern),
+                    cb.like(cb.lower(root.get("customerEmail")), pattern),
+                    cb.like(cb.lower(root.get("orderNumber")), pattern));
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.springweb.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Outbox reads and writes over JDBC, so recording events adds one batched statement to a write
+// and polling never loads entities
+public interface OutboxRepository {
+
+    // Inserts rows of [event type, JSON payload] in one batch, in the caller's transaction
+    void appendEvents(List<String[]> events, LocalDateTime createdAt);
+
+    // Claims the oldest undispatched events nobody holds a live claim on, skipping rows another node
+    // is claiming at the same moment: rows of [id, event type, payload, attempts]. Call in a transaction
+    List<Object[]> claimPendingEvents(String claimedBy, LocalDateTime now, LocalDateTime claimedUntil, int limit);
+
+    // Events after an id, in id order: rows of [id, event type, payload, dispatched]
+    List<Object[]> findEventsAfter(long afterId, int limit);
+
+    // The same rows for the given ids, those still in the table
+    List<Object[]> findEventsByIds(Collection<Long> ids);
+
+    // The id before the oldest undispatched event, or the newest id when all are dispatched
+    long findReplayStart();
+
+    void markDispatched(Collection<Long> ids, LocalDateTime dispatchedAt);
+
+    // Counts a failed delivery and gives up the claim, so any node can try again
+    void incrementAttempts(Collection<Long> ids);
+
+    int deleteDispatchedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,116 @@
+package com.springweb.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class OutboxRepositoryImpl implements OutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, payload, created_at, attempts) VALUES (?, ?, ?, 0)";
+    // Served by the (dispatched_at, id) index; rows locked by another node's claim are passed over
+    private static final String PENDING_SQL = "SELECT id, event_type, payload, attempts FROM outbox_events "
+            + "WHERE dispatched_at IS NULL AND (claimed_until IS NULL OR claimed_until < ?) "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_events SET claimed_by = ?, claimed_until = ? WHERE id IN (%s)";
+    private static final String AFTER_SQL = "SELECT id, event_type, payload, dispatched_at IS NOT NULL "
+            + "FROM outbox_events WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String BY_IDS_SQL = "SELECT id, event_type, payload, dispatched_at IS NOT NULL "
+            + "FROM outbox_events WHERE id IN (%s) ORDER BY id";
+    private static final String REPLAY_START_SQL = "SELECT COALESCE("
+            + "(SELECT MIN(id) - 1 FROM outbox_events WHERE dispatched_at IS NULL), "
+            + "(SELECT MAX(id) FROM outbox_events), 0)";
+    private static final String DISPATCHED_SQL = "UPDATE outbox_events SET dispatched_at = ? WHERE id IN (%s)";
+    private static final String ATTEMPTS_SQL =
+            "UPDATE outbox_events SET attempts = attempts + 1, claimed_until = NULL WHERE id IN (%s)";
+    private static final String PRUNE_SQL =
+            "DELETE FROM outbox_events WHERE dispatched_at IS NOT NULL AND dispatched_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendEvents(List<String[]> events, LocalDateTime createdAt) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (String[] event : events) {
+            rows.add(new Object[] { event[0], event[1], createdAt });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Override
+    public List<Object[]> claimPendingEvents(String claimedBy, LocalDateTime now, LocalDateTime claimedUntil,
+            int limit) {
+        List<Object[]> rows = jdbcTemplate.query(PENDING_SQL, (rs, rowNum) -> new Object[] {
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4) }, now, limit);
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<Object> args = new ArrayList<>(rows.size() + 2);
+        args.add(claimedBy);
+        args.add(claimedUntil);
+        for (Object[] row : rows) {
+            args.add(row[0]);
+        }
+        jdbcTemplate.update(String.format(CLAIM_SQL, placeholders(rows.size())), args.toArray());
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> findEventsAfter(long afterId, int limit) {
+        return jdbcTemplate.query(AFTER_SQL, (rs, rowNum) -> new Object[] {
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4) }, afterId, limit);
+    }
+
+    @Override
+    public List<Object[]> findEventsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(String.format(BY_IDS_SQL, placeholders(ids.size())), (rs, rowNum) -> new Object[] {
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4) }, ids.toArray());
+    }
+
+    @Override
+    public long findReplayStart() {
+        Long start = jdbcTemplate.queryForObject(REPLAY_START_SQL, Long.class);
+        return start != null ? start : 0;
+    }
+
+    @Override
+    public void markDispatched(Collection<Long> ids, LocalDateTime dispatchedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(dispatchedAt);
+        args.addAll(ids);
+        jdbcTemplate.update(String.format(DISPATCHED_SQL, placeholders(ids.size())), args.toArray());
+    }
+
+    @Override
+    public void incrementAttempts(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(String.format(ATTEMPTS_SQL, placeholders(ids.size())), ids.toArray());
+    }
+
+    @Override
+    public int deleteDispatchedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update(PRUNE_SQL, cutoff);
+    }
+
+    // Helper method to build "?, ?, ?" for an IN list
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
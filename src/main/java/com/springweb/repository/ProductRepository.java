@@ -3,37 +3,107 @@ package com.springweb.repository;
 import com.springweb.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
 
+    // List views serialize category and supplier, so fetch them with the products
+    @Override
+    @EntityGraph(Product.GRAPH_LIST)
+    List<Product> findAll();
+
+    @Override
+    @EntityGraph(Product.GRAPH_LIST)
+    Page<Product> findAll(Pageable pageable);
+
+    @EntityGraph(Product.GRAPH_LIST)
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
+    @EntityGraph(Product.GRAPH_LIST)
     List<Product> findByNameContainingIgnoreCase(String name);
 
     Optional<Product> findBySku(String sku);
 
+    @EntityGraph(Product.GRAPH_LIST)
     List<Product> findByCategoryId(Long categoryId);
 
+    @EntityGraph(Product.GRAPH_LIST)
     List<Product> findBySupplierId(Long supplierId);
 
+    @EntityGraph(Product.GRAPH_LIST)
     List<Product> findByIsActiveTrue();
 
+    @EntityGraph(Product.GRAPH_LIST)
     List<Product> findByIsActiveFalse();
 
+    @EntityGraph(Product.GRAPH_LIST)
     @Query("SELECT p FROM Product p WHERE p.stockQuantity < :threshold")
     List<Product> findByStockLessThan(@Param("threshold") int threshold);
 
+    @EntityGraph(Product.GRAPH_INVENTORY)
     @Query("SELECT p FROM Product p WHERE p.stockQuantity < :threshold AND p.isActive = true")
     List<Product> findLowStockActiveProducts(@Param("threshold") int threshold);
 
-    @Query("SELECT p.category.name, COUNT(p), SUM(p.stockQuantity), SUM(p.price * p.stockQuantity) FROM Product p GROUP BY p.category.name")
-    List<Object[]> getInventoryStatsByCategory();
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stockQuantity < :threshold AND p.isActive = true")
+    long countLowStockActiveProducts(@Param("threshold") int threshold);
+
+    // Rows of [id, stock quantity]
+    @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockLevels(@Param("ids") Collection<Long> ids);
+
+    // Rows of [id, stock quantity, reorder level, active] for the low-stock index
+    @Query("SELECT p.id, p.stockQuantity, p.reorderLevel, p.isActive FROM Product p")
+    List<Object[]> findReorderStates();
+
+    @Query("SELECT p.id, p.stockQuantity, p.reorderLevel, p.isActive FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findReorderStates(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(Product.GRAPH_LIST)
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    // Scan used only while the low-stock index is not loaded
+    @EntityGraph(Product.GRAPH_LIST)
+    @Query("SELECT p FROM Product p WHERE p.stockQuantity <= p.reorderLevel AND p.isActive = true " +
+            "ORDER BY p.stockQuantity, p.id")
+    List<Product> findAtOrBelowReorderLevel();
+
+    // Rows of [id, name, sku, description] for the product search index
+    @Query("SELECT p.id, p.name, p.sku, p.description FROM Product p")
+    List<Object[]> findSearchRows();
+
+    @Query("SELECT p.id, p.name, p.sku, p.description FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findSearchRows(@Param("ids") Collection<Long> ids);
+
+    // Inventory report summary: rows of [category name, products, units, value, low-stock products, low-stock units]
+    @Query("SELECT c.name, COUNT(p), COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+            "SUM(CASE WHEN p.stockQuantity < :threshold THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.stockQuantity < :threshold THEN p.stockQuantity ELSE 0 END) " +
+            "FROM Product p JOIN p.category c GROUP BY c.name ORDER BY c.name")
+    List<Object[]> getInventoryStatsByCategory(@Param("threshold") int threshold);
+
+    @Query("SELECT c.name, COUNT(p), COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+            "SUM(CASE WHEN p.stockQuantity < :threshold THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN p.stockQuantity < :threshold THEN p.stockQuantity ELSE 0 END) " +
+            "FROM Product p JOIN p.category c WHERE LOWER(c.name) = LOWER(:category) GROUP BY c.name")
+    List<Object[]> getInventoryStatsForCategory(@Param("category") String category, @Param("threshold") int threshold);
+
+    // Inventory report detail: rows of [id, name, sku, stock, price, category name], no entities loaded
+    @Query(value = "SELECT p.id, p.name, p.sku, p.stockQuantity, p.price, c.name FROM Product p JOIN p.category c " +
+            "ORDER BY c.name, p.id",
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<Object[]> findInventoryRows(Pageable pageable);
+
+    @Query(value = "SELECT p.id, p.name, p.sku, p.stockQuantity, p.price, c.name FROM Product p JOIN p.category c " +
+            "WHERE LOWER(c.name) = LOWER(:category) ORDER BY p.id",
+            countQuery = "SELECT COUNT(p) FROM Product p JOIN p.category c WHERE LOWER(c.name) = LOWER(:category)")
+    Page<Object[]> findInventoryRowsByCategory(@Param("category") String category, Pageable pageable);
 }
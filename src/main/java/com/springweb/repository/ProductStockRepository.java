@@ -0,0 +1,11 @@
+package com.springweb.repository;
+
+import java.util.Map;
+
+// Guarded stock mutations, executed as one JDBC batch so an order costs a single round trip
+public interface ProductStockRepository {
+
+    // Takes positive deltas from stock only where enough is left and returns negative deltas to it;
+    // one update count per entry, in map iteration order
+    int[] batchApplyStockDeltas(Map<Long, Integer> deltas);
+}
@@ -0,0 +1,28 @@
+package com.springweb.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    // Bumps the version so a product form saved from a stale copy is rejected instead of restoring old stock.
+    // A negative delta returns stock, and its guard always holds since stock never drops below zero
+    private static final String APPLY_DELTA_SQL = "UPDATE products SET stock_quantity = stock_quantity - ?, "
+            + "version = version + 1 WHERE id = ? AND stock_quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] batchApplyStockDeltas(Map<Long, Integer> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((productId, delta) -> args.add(new Object[] { delta, productId, delta }));
+        return args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, args);
+    }
+}
@@ -0,0 +1,40 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Report;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ReportRepository extends JpaRepository<Report, Long> {
+
+    Optional<Report> findByReportTypeAndPeriodStartAndPeriodEndAndParameters(String reportType,
+            LocalDate periodStart, LocalDate periodEnd, String parameters);
+
+    // Snapshot listings: rows of [id, type, period start, period end, parameters, generated at, content length],
+    // without loading the payloads
+    @Query(value = "SELECT r.id, r.reportType, r.periodStart, r.periodEnd, r.parameters, r.generatedAt, " +
+            "r.contentLength FROM Report r WHERE r.payload IS NOT NULL ORDER BY r.generatedAt DESC, r.id DESC",
+            countQuery = "SELECT COUNT(r) FROM Report r WHERE r.payload IS NOT NULL")
+    Page<Object[]> findSnapshotSummaries(Pageable pageable);
+
+    @Query(value = "SELECT r.id, r.reportType, r.periodStart, r.periodEnd, r.parameters, r.generatedAt, " +
+            "r.contentLength FROM Report r WHERE r.payload IS NOT NULL AND r.reportType = :reportType " +
+            "ORDER BY r.generatedAt DESC, r.id DESC",
+            countQuery = "SELECT COUNT(r) FROM Report r WHERE r.payload IS NOT NULL AND r.reportType = :reportType")
+    Page<Object[]> findSnapshotSummariesByType(@Param("reportType") String reportType, Pageable pageable);
+
+    // Drops snapshots whose period overlaps the given days, after the data behind them changed
+    @Modifying
+    @Query("DELETE FROM Report r WHERE r.reportType IN :reportTypes AND r.periodStart <= :to AND r.periodEnd >= :from")
+    int deleteSnapshotsOverlapping(@Param("reportTypes") Collection<String> reportTypes,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,30 @@
+package com.springweb.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Revenue grouped into calendar buckets by the database, so a long range costs one row per bucket
+public interface RevenueReportRepository {
+
+    enum Period {
+        DAILY,
+        WEEKLY,
+        MONTHLY;
+
+        // Unknown or missing values fall back to daily buckets
+        public static Period fromGroupBy(String groupBy) {
+            if (groupBy != null) {
+                for (Period period : values()) {
+                    if (period.name().equalsIgnoreCase(groupBy.trim())) {
+                        return period;
+                    }
+                }
+            }
+            return DAILY;
+        }
+    }
+
+    // Rows of [bucket label, completed revenue, completed refunds], oldest bucket first. Labels are
+    // yyyy-MM-dd, ISO week yyyy-'W'ww or yyyy-MM
+    List<Object[]> sumCompletedByPeriod(Period period, LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,63 @@
+package com.springweb.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class RevenueReportRepositoryImpl implements RevenueReportRepository {
+
+    // Bucket label per database; weeks use the ISO week and its week-based year on both
+    private static final Map<Period, String> MYSQL_BUCKETS = Map.of(
+            Period.DAILY, "DATE_FORMAT(transaction_date, '%Y-%m-%d')",
+            Period.WEEKLY, "DATE_FORMAT(transaction_date, '%x-W%v')",
+            Period.MONTHLY, "DATE_FORMAT(transaction_date, '%Y-%m')");
+    private static final Map<Period, String> H2_BUCKETS = Map.of(
+            Period.DAILY, "FORMATDATETIME(transaction_date, 'yyyy-MM-dd')",
+            Period.WEEKLY, "CONCAT(CAST(EXTRACT(ISO_WEEK_YEAR FROM transaction_date) AS VARCHAR), '-W', "
+                    + "LPAD(CAST(EXTRACT(ISO_WEEK FROM transaction_date) AS VARCHAR), 2, '0'))",
+            Period.MONTHLY, "FORMATDATETIME(transaction_date, 'yyyy-MM')");
+
+    // Refunds are completed transactions too, so they are split out instead of counted as revenue
+    private static final String SUM_SQL = "SELECT %1$s, "
+            + "COALESCE(SUM(CASE WHEN transaction_type = 'REFUND' THEN 0 ELSE amount END), 0), "
+            + "COALESCE(SUM(CASE WHEN transaction_type = 'REFUND' THEN amount ELSE 0 END), 0) "
+            + "FROM transactions "
+            + "WHERE status = 'COMPLETED' AND transaction_date BETWEEN ? AND ? "
+            + "GROUP BY %1$s ORDER BY %1$s";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Resolved from the connection metadata on first use
+    private volatile Map<Period, String> buckets;
+
+    public RevenueReportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Object[]> sumCompletedByPeriod(Period period, LocalDateTime startDate, LocalDateTime endDate) {
+        String sql = String.format(SUM_SQL, buckets().get(period));
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Object[] {
+                rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3) }, startDate, endDate);
+    }
+
+    private Map<Period, String> buckets() {
+        Map<Period, String> resolved = buckets;
+        if (resolved == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (product != null && (product.startsWith("MySQL") || product.startsWith("MariaDB"))) {
+                resolved = MYSQL_BUCKETS;
+            } else if ("H2".equals(product)) {
+                resolved = H2_BUCKETS;
+            } else {
+                throw new IllegalStateException("Revenue bucketing is not supported on " + product);
+            }
+            buckets = resolved;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,11 @@
+package com.springweb.repository;
+
+import java.time.LocalDate;
+
+// Rebuilds the daily sales rollups straight from orders with INSERT ... SELECT, so no order rows
+// travel to the application
+public interface SalesRollupRepository {
+
+    // Replaces daily_sales and daily_category_sales for every day from 'from' to 'to', inclusive
+    void rebuildRollups(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,48 @@
+package com.springweb.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class SalesRollupRepositoryImpl implements SalesRollupRepository {
+
+    private static final String DELETE_DAILY_SQL = "DELETE FROM daily_sales WHERE sales_date BETWEEN ? AND ?";
+    private static final String DELETE_CATEGORY_SQL =
+            "DELETE FROM daily_category_sales WHERE sales_date BETWEEN ? AND ?";
+
+    // Cancelled orders are not sales; placed_at bounds keep both inserts on the placed_at index
+    private static final String INSERT_DAILY_SQL = "INSERT INTO daily_sales "
+            + "(sales_date, order_count, revenue, updated_at) "
+            + "SELECT CAST(o.placed_at AS DATE), COUNT(*), SUM(o.total_amount), CURRENT_TIMESTAMP "
+            + "FROM orders o "
+            + "WHERE o.placed_at >= ? AND o.placed_at < ? AND o.status <> 'CANCELLED' "
+            + "GROUP BY CAST(o.placed_at AS DATE)";
+    private static final String INSERT_CATEGORY_SQL = "INSERT INTO daily_category_sales "
+            + "(sales_date, category_id, units, revenue, order_count, updated_at) "
+            + "SELECT CAST(o.placed_at AS DATE), p.category_id, SUM(oi.quantity), SUM(oi.total_price), "
+            + "COUNT(DISTINCT o.id), CURRENT_TIMESTAMP "
+            + "FROM orders o "
+            + "JOIN order_items oi ON oi.order_id = o.id "
+            + "JOIN products p ON p.id = oi.product_id "
+            + "WHERE o.placed_at >= ? AND o.placed_at < ? AND o.status <> 'CANCELLED' "
+            + "AND p.category_id IS NOT NULL "
+            + "GROUP BY CAST(o.placed_at AS DATE), p.category_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalesRollupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void rebuildRollups(LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+
+        jdbcTemplate.update(DELETE_DAILY_SQL, from, to);
+        jdbcTemplate.update(DELETE_CATEGORY_SQL, from, to);
+        jdbcTemplate.update(INSERT_DAILY_SQL, start, end);
+        jdbcTemplate.update(INSERT_CATEGORY_SQL, start, end);
+    }
+}
@@ -4,6 +4,7 @@ import com.springweb.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,7 +15,8 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        RevenueReportRepository {
 
     List<Transaction> findByOrderId(Long orderId);
 
@@ -95,6 +97,16 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByOrderIdAndStatus(@Param("orderId") Long orderId,
             @Param("status") Transaction.TransactionStatus status);
 
+    // Newest-first feed; the pageable only limits the window, both queries seek on (transactionDate, id)
+    @Query("SELECT t FROM Transaction t ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findFeed(Pageable window);
+
+    @Query("SELECT t FROM Transaction t " +
+            "WHERE t.transactionDate < :transactionDate OR (t.transactionDate = :transactionDate AND t.id < :id) " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findFeedAfter(@Param("transactionDate") LocalDateTime transactionDate, @Param("id") Long id,
+            Pageable window);
+
     // Get transactions with order details
     @Query("SELECT DISTINCT t FROM Transaction t LEFT JOIN FETCH t.order WHERE t.id = :id")
     Optional<Transaction> findByIdWithOrder(@Param("id") Long id);
@@ -108,4 +120,15 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT t.paymentMethod, COUNT(t), SUM(t.amount) FROM Transaction t WHERE t.transactionStatus = 'COMPLETED' GROUP BY t.paymentMethod")
     List<Object[]> getStatsByPaymentMethod();
+
+    // Rows of [status, type, count, amount], one per combination that occurs
+    @Query("SELECT t.transactionStatus, t.transactionType, COUNT(t), COALESCE(SUM(t.amount), 0) " +
+            "FROM Transaction t GROUP BY t.transactionStatus, t.transactionType")
+    List<Object[]> summarizeByStatusAndType();
+
+    @Query("SELECT t.transactionStatus, t.transactionType, COUNT(t), COALESCE(SUM(t.amount), 0) " +
+            "FROM Transaction t WHERE t.transactionDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY t.transactionStatus, t.transactionType")
+    List<Object[]> summarizeByStatusAndType(@Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,36 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+// Filters for the transaction list; each one matches everything when its value is missing
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> hasStatus(Transaction.TransactionStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("transactionStatus"), status);
+    }
+
+    public static Specification<Transaction> hasType(Transaction.TransactionType type) {
+        return (root, query, cb) -> type == null ? null : cb.equal(root.get("transactionType"), type);
+    }
+
+    public static Specification<Transaction> hasPaymentMethod(Transaction.PaymentMethod paymentMethod) {
+        return (root, query, cb) -> paymentMethod == null ? null : cb.equal(root.get("paymentMethod"), paymentMethod);
+    }
+
+    // Transaction number or description contains the text, ignoring case
+    public static Specification<Transaction> matchesSearch(String search) {
+        return (root, query, cb) -> {
+            if (search == null || search.trim().isEmpty()) {
+                return null;
+            }
+            String pattern = "%" + search.trim().toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("transactionNumber")), pattern),
+                    cb.like(cb.lower(root.get("description")), pattern));
+        };
+    }
+}
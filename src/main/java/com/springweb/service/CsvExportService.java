@@ -0,0 +1,123 @@
+package com.springweb.service;
+
+import com.springweb.entity.Order;
+import com.springweb.entity.Product;
+import com.springweb.entity.Transaction;
+import com.springweb.repository.CsvExportRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Full-history CSV exports. Rows are read from a database cursor inside a read-only transaction
+ * of their own and written as they arrive, and each entity is detached once written, so memory
+ * stays flat however many rows there are. The body runs after the controller has returned,
+ * on the MVC async executor, with the export timeout set in ExportAsyncConfiguration.
+ */
+@Service
+public class CsvExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvExportService.class);
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CsvExportRepository csvExportRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final MeterRegistry meterRegistry;
+
+    public CsvExportService(CsvExportRepository csvExportRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.csvExportRepository = csvExportRepository;
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+    }
+
+    // e.g. attachment("orders") -> attachment; filename="orders-2025-01-31.csv"
+    public static String attachment(String name) {
+        return ContentDisposition.attachment().filename(name + "-" + LocalDate.now() + ".csv").build().toString();
+    }
+
+    public StreamingResponseBody exportOrders() {
+        return export("orders", csvExportRepository::streamOrders,
+                new Object[] { "id", "orderNumber", "placedAt", "status", "customerName", "customerEmail",
+                        "customerPhone", "shippingAddress", "billingAddress", "totalAmount", "updatedAt" },
+                (Order order) -> new Object[] { order.getId(), order.getOrderNumber(), order.getPlacedAt(),
+                        order.getStatus(), order.getCustomerName(), order.getCustomerEmail(),
+                        order.getCustomerPhone(), order.getShippingAddress(), order.getBillingAddress(),
+                        order.getTotalAmount(), order.getUpdatedAt() });
+    }
+
+    public StreamingResponseBody exportTransactions() {
+        // getId() on the lazy order proxy does not load the order
+        return export("transactions", csvExportRepository::streamTransactions,
+                new Object[] { "id", "transactionNumber", "transactionDate", "type", "status", "paymentMethod",
+                        "amount", "orderId", "description" },
+                (Transaction transaction) -> new Object[] { transaction.getId(),
+                        transaction.getTransactionNumber(), transaction.getTransactionDate(),
+                        transaction.getTransactionType(), transaction.getTransactionStatus(),
+                        transaction.getPaymentMethod(), transaction.getAmount(),
+                        transaction.getOrder() != null ? transaction.getOrder().getId() : null,
+                        transaction.getDescription() });
+    }
+
+    public StreamingResponseBody exportProducts() {
+        return export("products", csvExportRepository::streamProducts,
+                new Object[] { "id", "sku", "name", "category", "supplier", "price", "stockQuantity",
+                        "reorderLevel", "active", "createdAt" },
+                (Product product) -> new Object[] { product.getId(), product.getSku(), product.getName(),
+                        product.getCategory() != null ? product.getCategory().getName() : null,
+                        product.getSupplier() != null ? product.getSupplier().getName() : null,
+                        product.getPrice(), product.getStockQuantity(), product.getReorderLevel(),
+                        product.getIsActive(), product.getCreatedAt() });
+    }
+
+    private <T> StreamingResponseBody export(String name, Supplier<Stream<T>> rows, Object[] header,
+            Function<T, Object[]> columns) {
+        return out -> {
+            long startedAt = System.nanoTime();
+            long[] written = new long[1];
+            CsvWriter csv = new CsvWriter(
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+            csv.row(header);
+
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    stream.forEach(entity -> {
+                        csv.row(columns.apply(entity));
+                        entityManager.detach(entity);
+                        written[0]++;
+                    });
+                }
+            });
+            csv.flush();
+
+            long elapsedNanos = System.nanoTime() - startedAt;
+            meterRegistry.counter("export.rows", "export", name).increment(written[0]);
+            meterRegistry.timer("export.duration", "export", name).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            logger.info("Exported {} {} in {} ms ({} rows/sec)", written[0], name,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    elapsedNanos > 0 ? Math.round(written[0] / (elapsedNanos / 1e9)) : written[0]);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.springweb.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes RFC 4180 rows: fields holding a comma, quote or line break are quoted, quotes doubled,
+ * nulls written as empty fields. Fields that a spreadsheet would run as a formula are prefixed
+ * with a quote character.
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    // Throws UncheckedIOException so it can be called from stream callbacks
+    public void row(Object... fields) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(fields[i]));
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    static String escape(Object field) {
+        if (field == null) {
+            return "";
+        }
+        String value = field.toString();
+        if (!value.isEmpty() && !(field instanceof Number) && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,137 @@
+package com.springweb.service;
+
+import com.springweb.entity.Order;
+import com.springweb.repository.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The dashboard KPIs in one call: entity counts, low-stock products, pending orders and today's
+ * revenue. The count of products at or below their own reorder level comes from
+ * {@link LowStockIndex}; every other figure, including the active products under the fixed
+ * low-stock threshold, is a single count or sum query, run side by side on a small pool so the
+ * summary costs the slowest query rather than all of them. The result is kept for a few seconds
+ * and dropped as soon as the outbox dispatches an order, transaction, product or stock change.
+ */
+@Service
+@org.springframework.core.annotation.Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class DashboardSummaryService implements OutboxHandler {
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
+    private final TransactionRepository transactionRepository;
+    private final LowStockIndex lowStockIndex;
+    private final int lowStockThreshold;
+    private final ExecutorService executor;
+
+    // Dropped on every committed change the summary depends on
+    private final TimedSnapshot<Map<String, Object>> snapshot;
+
+    public DashboardSummaryService(ProductRepository productRepository, OrderRepository orderRepository,
+            CategoryRepository categoryRepository, SupplierRepository supplierRepository,
+            TransactionRepository transactionRepository, LowStockIndex lowStockIndex,
+            @Value("${springweb.dashboard-summary.low-stock-threshold:10}") int lowStockThreshold,
+            @Value("${springweb.dashboard-summary.ttl-ms:5000}") long ttlMillis,
+            @Value("${springweb.dashboard-summary.threads:3}") int threads) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.categoryRepository = categoryRepository;
+        this.supplierRepository = supplierRepository;
+        this.transactionRepository = transactionRepository;
+        this.lowStockIndex = lowStockIndex;
+        this.lowStockThreshold = lowStockThreshold;
+        this.snapshot = new TimedSnapshot<>(this::compute, ttlMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-summary-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Map<String, Object> getSummary() {
+        return snapshot.get();
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    // Every event type the outbox carries feeds one of the figures
+    @Override
+    public void handle(List<Object> events) {
+        snapshot.invalidate();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Map<String, Object> compute() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime from = today.atStartOfDay();
+        LocalDateTime to = today.atTime(23, 59, 59);
+
+        CompletableFuture<Long> products = async(productRepository::count);
+        CompletableFuture<Long> orders = async(orderRepository::count);
+        CompletableFuture<Long> categories = async(categoryRepository::count);
+        CompletableFuture<Long> suppliers = async(supplierRepository::count);
+        CompletableFuture<Long> lowStock = async(
+                () -> productRepository.countLowStockActiveProducts(lowStockThreshold));
+        CompletableFuture<Long> pending = async(() -> orderRepository.countByStatus(Order.OrderStatus.PENDING));
+        CompletableFuture<List<Object[]>> revenue = async(() -> transactionRepository
+                .sumCompletedByPeriod(RevenueReportRepository.Period.DAILY, from, to));
+
+        try {
+            CompletableFuture.allOf(products, orders, categories, suppliers, lowStock, pending, revenue).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+
+        BigDecimal todayRevenue = BigDecimal.ZERO;
+        BigDecimal todayRefunds = BigDecimal.ZERO;
+        for (Object[] row : revenue.join()) {
+            todayRevenue = todayRevenue.add((BigDecimal) row[1]);
+            todayRefunds = todayRefunds.add((BigDecimal) row[2]);
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalProducts", products.join());
+        summary.put("totalOrders", orders.join());
+        summary.put("totalCategories", categories.join());
+        summary.put("totalSuppliers", suppliers.join());
+        summary.put("lowStockProducts", lowStock.join());
+        summary.put("lowStockThreshold", lowStockThreshold);
+        summary.put("belowReorderLevel", lowStockIndex.count());
+        summary.put("pendingOrders", pending.join());
+        summary.put("todayRevenue", todayRevenue);
+        summary.put("todayRefunds", todayRefunds);
+        summary.put("generatedAt", LocalDateTime.now());
+        return Collections.unmodifiableMap(summary);
+    }
+
+    // Helper method to run one summary query on the pool
+    private <T> CompletableFuture<T> async(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+}
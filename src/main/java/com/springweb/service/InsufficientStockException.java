@@ -0,0 +1,29 @@
+package com.springweb.service;
+
+import java.util.List;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+    private final List<String> productNames;
+
+    public InsufficientStockException(List<Long> productIds) {
+        this(productIds, List.of());
+    }
+
+    public InsufficientStockException(List<Long> productIds, List<String> productNames) {
+        super("Insufficient stock for products: " + productIds);
+        this.productIds = List.copyOf(productIds);
+        this.productNames = List.copyOf(productNames);
+    }
+
+    // Products whose guarded decrement matched no row
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    // Names of the same products, when the caller had them loaded
+    public List<String> getProductNames() {
+        return productNames;
+    }
+}
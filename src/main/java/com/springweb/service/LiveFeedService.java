@@ -0,0 +1,330 @@
+package com.springweb.service;
+
+import com.springweb.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Pushes compact change notices to open dashboards over Server-Sent Events, so screens refresh
+ * when data changes instead of polling. A notice is built once per dispatched change and queued
+ * on every connection's bounded buffer; sender threads drain the buffers, one thread per connection
+ * at a time, so a slow client holds up neither the request that made the change nor the other
+ * clients. A buffer that overflows is emptied and its client is sent a single resync notice,
+ * telling it to reload what it shows. A connection whose drain runs past the send timeout is
+ * dropped; its browser reconnects and is told to resync.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LiveFeedService implements OutboxHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveFeedService.class);
+
+    private final ProductRepository productRepository;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final int maxConnections;
+    private final long sendTimeoutMillis;
+    private final LongFunction<SseEmitter> emitterFactory;
+    private final ExecutorService sender;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter published;
+    private final Counter overflows;
+    private final Counter stalls;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    // Id of the last notice; a client reconnecting with an older Last-Event-ID has missed some
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Autowired
+    public LiveFeedService(ProductRepository productRepository, MeterRegistry meterRegistry,
+            @Value("${springweb.live-feed.buffer-size:100}") int bufferSize,
+            @Value("${springweb.live-feed.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${springweb.live-feed.max-connections:200}") int maxConnections,
+            @Value("${springweb.live-feed.heartbeat-ms:25000}") long heartbeatMillis,
+            @Value("${springweb.live-feed.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this(productRepository, meterRegistry, bufferSize, timeoutMillis, maxConnections, heartbeatMillis,
+                sendTimeoutMillis, SseEmitter::new);
+    }
+
+    LiveFeedService(ProductRepository productRepository, MeterRegistry meterRegistry, int bufferSize,
+            long timeoutMillis, int maxConnections, long heartbeatMillis, long sendTimeoutMillis,
+            LongFunction<SseEmitter> emitterFactory) {
+        this.productRepository = productRepository;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnections = maxConnections;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.emitterFactory = emitterFactory;
+
+        // Threads are added as connections need them and retire when idle. Room for twice the
+        // connection limit covers dropped connections whose send the container has yet to time out
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(2, 2 * maxConnections, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "live-feed-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis,
+                TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(1, Math.min(1000, sendTimeoutMillis / 2));
+        this.heartbeat.scheduleAtFixedRate(this::dropStalledConnections, checkMillis, checkMillis,
+                TimeUnit.MILLISECONDS);
+
+        this.published = meterRegistry.counter("live.feed.notices");
+        this.overflows = meterRegistry.counter("live.feed.overflows");
+        this.stalls = meterRegistry.counter("live.feed.stalls");
+        meterRegistry.gauge("live.feed.connections", connections, Set::size);
+    }
+
+    // One change notice; shared by every connection it is queued on
+    private static final class Notice {
+
+        private final long id;
+        private final String name;
+        private final Map<String, Object> data;
+
+        private Notice(long id, String name, Map<String, Object> data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private static final class Connection {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Notice> buffer;
+        private final AtomicBoolean resync = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+        // When the current drain started, 0 while none runs
+        private volatile long drainStartedAt;
+        private volatile boolean dropped;
+
+        private Connection(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    /**
+     * Opens a feed. It starts with a ready notice carrying the current sequence; a client that
+     * reconnects with an older Last-Event-ID is sent a resync first. Throws IllegalStateException
+     * when the connection limit is reached.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (connections.size() >= maxConnections) {
+            throw new IllegalStateException("Too many live feed connections");
+        }
+
+        SseEmitter emitter = emitterFactory.apply(timeoutMillis);
+        Connection connection = new Connection(emitter, bufferSize);
+        emitter.onCompletion(() -> connections.remove(connection));
+        emitter.onTimeout(() -> connections.remove(connection));
+        emitter.onError(error -> connections.remove(connection));
+
+        long current = sequence.get();
+        if (lastEventId != null && !lastEventId.equals(String.valueOf(current))) {
+            connection.resync.set(true);
+        }
+        connection.buffer.offer(new Notice(current, "ready", Map.of("sequence", current)));
+        connections.add(connection);
+        schedule(connection);
+        return emitter;
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    // Runs last among the outbox handlers, once caches and rollups reflect the batch, so a client
+    // that reloads on a notice reads fresh data. Stock levels are read once for the whole batch,
+    // and not at all when nobody is listening
+    @Override
+    public void handle(List<Object> events) {
+        Set<Long> stockChanged = new TreeSet<>();
+        for (Object event : events) {
+            if (event instanceof OrderChangedEvent order) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("id", order.getOrderId());
+                data.put("change", order.getChangeType());
+                data.put("status", order.getStatus());
+                publish("order", data);
+            } else if (event instanceof TransactionChangedEvent transaction) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("id", transaction.getTransactionId());
+                data.put("change", transaction.getChangeType());
+                data.put("status", transaction.getStatus());
+                publish("transaction", data);
+            } else if (event instanceof ProductChangedEvent product) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("id", product.getProductId());
+                data.put("change", product.getChangeType());
+                publish("product", data);
+            } else if (event instanceof StockChangedEvent stock) {
+                stockChanged.addAll(stock.getProductIds());
+            }
+        }
+        if (!stockChanged.isEmpty()) {
+            publish("stock", connections.isEmpty() ? Map.of() : Map.of("products", stockLevels(stockChanged)));
+        }
+    }
+
+    // Alerts are raised on the outbox thread by LowStockIndex, which runs before this handler
+    @EventListener
+    public void onLowStockAlert(LowStockAlertEvent alert) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", alert.getProductId());
+        data.put("stock", alert.getStock());
+        data.put("reorderLevel", alert.getReorderLevel());
+        publish("low-stock", data);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        for (Connection connection : connections) {
+            connection.emitter.complete();
+        }
+        connections.clear();
+    }
+
+    private List<Map<String, Object>> stockLevels(Set<Long> productIds) {
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (Object[] row : productRepository.findStockLevels(productIds)) {
+            Map<String, Object> level = new HashMap<>();
+            level.put("id", row[0]);
+            level.put("stock", row[1]);
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private void publish(String name, Map<String, Object> data) {
+        Notice notice = new Notice(sequence.incrementAndGet(), name, data);
+        if (connections.isEmpty()) {
+            return;
+        }
+        published.increment();
+        for (Connection connection : connections) {
+            if (!connection.buffer.offer(notice)) {
+                // Too far behind: drop what is queued and have the client reload instead
+                connection.buffer.clear();
+                connection.resync.set(true);
+                overflows.increment();
+            }
+            schedule(connection);
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Connection connection : connections) {
+            connection.heartbeatDue.set(true);
+            schedule(connection);
+        }
+    }
+
+    // A drain past the send timeout is a client that stopped reading, or reads too slowly to keep
+    // up. The connection stops receiving notices now; its sender thread completes it once the send
+    // in progress returns or the container times it out
+    private void dropStalledConnections() {
+        long now = System.currentTimeMillis();
+        for (Connection connection : connections) {
+            long startedAt = connection.drainStartedAt;
+            if (startedAt != 0 && now - startedAt > sendTimeoutMillis) {
+                connection.dropped = true;
+                connections.remove(connection);
+                stalls.increment();
+                logger.debug("Dropping live feed connection stalled for {} ms", now - startedAt);
+            }
+        }
+    }
+
+    // Helper method to start draining a connection unless a sender thread already is
+    private void schedule(Connection connection) {
+        if (connection.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(connection));
+            } catch (RejectedExecutionException e) {
+                connection.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Connection connection) {
+        connection.drainStartedAt = System.currentTimeMillis();
+        try {
+            while (!connection.dropped) {
+                if (connection.resync.getAndSet(false)) {
+                    long current = sequence.get();
+                    connection.emitter.send(SseEmitter.event().id(String.valueOf(current)).name("resync")
+                            .data(Map.of("sequence", current), MediaType.APPLICATION_JSON));
+                }
+                Notice notice = connection.buffer.poll();
+                if (notice == null) {
+                    break;
+                }
+                connection.emitter.send(SseEmitter.event().id(String.valueOf(notice.id)).name(notice.name)
+                        .data(notice.data, MediaType.APPLICATION_JSON));
+            }
+            if (!connection.dropped && connection.heartbeatDue.getAndSet(false)) {
+                connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException e) {
+            // The client went away; completing with the error lets the container release the request
+            logger.debug("Dropping live feed connection: {}", e.getMessage());
+            connections.remove(connection);
+            connection.emitter.completeWithError(e);
+            return;
+        } catch (IllegalStateException e) {
+            // The emitter already completed
+            connections.remove(connection);
+            return;
+        } finally {
+            connection.drainStartedAt = 0;
+        }
+
+        if (connection.dropped) {
+            connection.emitter.complete();
+            return;
+        }
+        connection.draining.set(false);
+        // A notice or heartbeat may have come in after the last check but before the flag was cleared
+        if (!connection.buffer.isEmpty() || connection.resync.get() || connection.heartbeatDue.get()) {
+            schedule(connection);
+        }
+    }
+}
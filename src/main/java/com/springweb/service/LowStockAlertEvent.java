@@ -0,0 +1,31 @@
+package com.springweb.service;
+
+/**
+ * Published by {@link LowStockIndex} when an active product's stock drops to or below its reorder
+ * level. It is raised once per crossing: the product has to climb back above its level before it
+ * can alert again. Published on the outbox thread after the change has committed.
+ */
+public class LowStockAlertEvent {
+
+    private final Long productId;
+    private final int stock;
+    private final int reorderLevel;
+
+    public LowStockAlertEvent(Long productId, int stock, int reorderLevel) {
+        this.productId = productId;
+        this.stock = stock;
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+}
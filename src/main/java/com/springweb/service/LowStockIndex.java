@@ -0,0 +1,168 @@
+package com.springweb.service;
+
+import com.springweb.entity.Product;
+import com.springweb.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of the active products whose stock is at or below their own reorder level, so
+ * low-stock checks no longer scan the products table. It is loaded once when the application is
+ * ready and then kept current by the outbox: each batch of stock and product changes reads the new
+ * levels of the products it names in one query and re-checks each of them in constant time. A
+ * product that drops to its reorder level publishes a {@link LowStockAlertEvent}. Until the index
+ * has loaded, lookups fall back to a query.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class LowStockIndex implements OutboxHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockIndex.class);
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Product id -> its level, for low products only
+    private final Map<Long, Level> low = new ConcurrentHashMap<>();
+
+    // The startup load and the outbox thread both write; serializing them keeps a load that read
+    // the table earlier from overwriting a newer level
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile boolean ready;
+
+    public LowStockIndex(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            loadLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int count() {
+        return ready ? low.size() : productRepository.findAtOrBelowReorderLevel().size();
+    }
+
+    // Low products, lowest stock first
+    public List<Product> findProducts() {
+        if (!ready) {
+            return productRepository.findAtOrBelowReorderLevel();
+        }
+        Set<Long> productIds = new HashSet<>(low.keySet());
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Product> products = new ArrayList<>(productRepository.findByIdIn(productIds));
+        products.sort(Comparator.comparing(Product::getStockQuantity).thenComparing(Product::getId));
+        return products;
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    // Replayed batches find the levels already applied, so they never alert twice
+    @Override
+    public void handle(List<Object> events) {
+        Set<Long> productIds = new HashSet<>();
+        for (Object event : events) {
+            if (event instanceof StockChangedEvent stock) {
+                productIds.addAll(stock.getProductIds());
+            } else if (event instanceof ProductChangedEvent product) {
+                productIds.add(product.getProductId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        List<LowStockAlertEvent> alerts = new ArrayList<>();
+        lock.lock();
+        try {
+            if (!ready) {
+                // The startup load failed; this batch's changes are in the table it reads
+                loadLocked();
+                return;
+            }
+            Set<Long> deleted = new HashSet<>(productIds);
+            for (Object[] row : productRepository.findReorderStates(productIds)) {
+                Long productId = ((Number) row[0]).longValue();
+                deleted.remove(productId);
+                Level level = levelOf(row);
+                if (level == null) {
+                    low.remove(productId);
+                } else if (low.put(productId, level) == null) {
+                    alerts.add(new LowStockAlertEvent(productId, level.stock, level.reorderLevel));
+                }
+            }
+            deleted.forEach(low::remove);
+        } finally {
+            lock.unlock();
+        }
+
+        for (LowStockAlertEvent alert : alerts) {
+            logger.warn("Product {} is at or below its reorder level: stock {}, reorder level {}",
+                    alert.getProductId(), alert.getStock(), alert.getReorderLevel());
+            eventPublisher.publishEvent(alert);
+        }
+    }
+
+    private void loadLocked() {
+        try {
+            Map<Long, Level> loaded = new HashMap<>();
+            for (Object[] row : productRepository.findReorderStates()) {
+                Level level = levelOf(row);
+                if (level != null) {
+                    loaded.put(((Number) row[0]).longValue(), level);
+                }
+            }
+            low.keySet().retainAll(loaded.keySet());
+            low.putAll(loaded);
+            ready = true;
+            logger.info("Low-stock index loaded with {} products at or below their reorder level", loaded.size());
+        } catch (RuntimeException e) {
+            logger.error("Could not load the low-stock index; low-stock lookups will query the database", e);
+        }
+    }
+
+    // Helper method to read a [id, stock, reorder level, active] row; null when the product is not low
+    private static Level levelOf(Object[] row) {
+        int stock = ((Number) row[1]).intValue();
+        int reorderLevel = row[2] != null ? ((Number) row[2]).intValue() : 0;
+        boolean active = Boolean.TRUE.equals(row[3]);
+        return active && stock <= reorderLevel ? new Level(stock, reorderLevel) : null;
+    }
+
+    private static final class Level {
+
+        private final int stock;
+        private final int reorderLevel;
+
+        Level(int stock, int reorderLevel) {
+            this.stock = stock;
+            this.reorderLevel = reorderLevel;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-write action when its save loses an optimistic lock race.
+ * The action must re-read everything it changes, since each attempt starts from scratch.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MS = 20;
+    private static final long MAX_BACKOFF_MS = 200;
+
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Throws the last OptimisticLockingFailureException once all attempts are used up
+    public <T> T execute(String operation, Supplier<T> action) {
+        long backoff = INITIAL_BACKOFF_MS;
+        for (int attempt = 1;; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "operation", operation).increment();
+                if (attempt >= MAX_ATTEMPTS) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "operation", operation).increment();
+                    logger.warn("Giving up on {} after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+
+                meterRegistry.counter("optimistic.lock.retries", "operation", operation).increment();
+                sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1), e);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void sleep(long millis, OptimisticLockingFailureException conflict) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.springweb.entity.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever an order is created, edited, changes status or is deleted. Publish it inside
+ * the transaction that makes the change: {@link OutboxService} records it there and hands it to the
+ * {@link OutboxHandler}s once committed.
+ */
+public class OrderChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final Long orderId;
+    private final LocalDateTime placedAt;
+    private final ChangeType changeType;
+    private final Order.OrderStatus status;
+
+    public OrderChangedEvent(Long orderId, LocalDateTime placedAt, ChangeType changeType) {
+        this(orderId, placedAt, changeType, null);
+    }
+
+    @JsonCreator
+    public OrderChangedEvent(@JsonProperty("orderId") Long orderId, @JsonProperty("placedAt") LocalDateTime placedAt,
+            @JsonProperty("changeType") ChangeType changeType, @JsonProperty("status") Order.OrderStatus status) {
+        this.orderId = orderId;
+        this.placedAt = placedAt;
+        this.changeType = changeType;
+        this.status = status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getPlacedAt() {
+        return placedAt;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    // Status after the change; null when the publisher did not load the order
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+}
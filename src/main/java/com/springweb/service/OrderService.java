@@ -0,0 +1,185 @@
+package com.springweb.service;
+
+import com.springweb.entity.Order;
+import com.springweb.entity.OrderItem;
+import com.springweb.entity.Product;
+import com.springweb.repository.OrderRepository;
+import com.springweb.repository.OrderSpecifications;
+import com.springweb.repository.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+@Service
+public class OrderService {
+
+    // Ids per IN list when loading orders with their items, so an unpaged list never becomes one huge statement
+    private static final int LOAD_CHUNK_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
+            StockService stockService, ApplicationEventPublisher eventPublisher) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.stockService = stockService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // One requested line of an order; a line must ask for at least one unit, since a zero or
+    // negative quantity would be taken from stock as a credit
+    public static class OrderLine {
+
+        private final Long productId;
+        private final int quantity;
+
+        public OrderLine(Long productId, int quantity) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            }
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    /**
+     * Builds the items of a new order and saves it together with the stock changes.
+     * Products are resolved with a single query, stock is taken with one JDBC batch and
+     * the order is inserted in the same transaction, so a failure leaves nothing behind.
+     */
+    @Transactional
+    public Order placeOrder(Order order, List<OrderLine> lines) {
+        Map<Long, Product> products = resolveProducts(lines);
+
+        List<OrderItem> orderItems = new ArrayList<>(lines.size());
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (OrderLine line : lines) {
+            Product product = products.get(line.getProductId());
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setUnitPrice(product.getPrice());
+
+            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(line.getQuantity()));
+            orderItem.setTotalPrice(itemTotal);
+            orderItem.setOrder(order);
+            orderItems.add(orderItem);
+
+            totalAmount = totalAmount.add(itemTotal);
+        }
+
+        order.setOrderItems(orderItems);
+        order.setTotalAmount(totalAmount);
+
+        try {
+            stockService.reserve(StockService.quantitiesOf(orderItems));
+        } catch (InsufficientStockException e) {
+            List<String> names = e.getProductIds().stream().map(id -> products.get(id).getName()).toList();
+            throw new InsufficientStockException(e.getProductIds(), names);
+        }
+
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(savedOrder.getId(), savedOrder.getPlacedAt(),
+                OrderChangedEvent.ChangeType.CREATED, savedOrder.getStatus()));
+        return savedOrder;
+    }
+
+    /**
+     * One page of orders with their items, filtered in the database. The first query pages over
+     * order ids only, the second loads items and products for just those ids, so the cost of a page
+     * does not depend on how many orders match. Pass {@code Pageable.unpaged(sort)} for every match;
+     * those are then loaded {@value #LOAD_CHUNK_SIZE} ids per query.
+     */
+    @Transactional(readOnly = true)
+    public Page<Order> findOrders(String search, Order.OrderStatus status, Pageable pageable) {
+        Specification<Order> specification = OrderSpecifications.matchesSearch(search)
+                .and(OrderSpecifications.hasStatus(status));
+        Page<Long> ids = orderRepository.findIdPage(specification, pageable);
+
+        return new PageImpl<>(withItemsInOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * One window of the newest-first order feed, starting after the cursor (or at the top when it
+     * is null). The database seeks to the cursor on the (placed_at, id) index instead of skipping
+     * rows, so every window costs the same however deep the client has scrolled.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Order> findOrdersAfter(KeysetCursor after, int size) {
+        // One extra id tells whether another window follows
+        Pageable window = PageRequest.of(0, size + 1);
+        List<Long> ids = after == null
+                ? orderRepository.findFeedIds(window)
+                : orderRepository.findFeedIdsAfter(after.getTimestamp(), after.getId(), window);
+
+        boolean hasNext = ids.size() > size;
+        List<Long> windowIds = hasNext ? ids.subList(0, size) : ids;
+        return new SliceImpl<>(withItemsInOrder(windowIds), PageRequest.of(0, size), hasNext);
+    }
+
+    // Helper method to load orders with items for the given ids, in the same order as the ids
+    private List<Order> withItemsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Order> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            for (Order order : orderRepository.findAllWithItemsByIdIn(chunk)) {
+                byId.put(order.getId(), order);
+            }
+        }
+        // Skip orders deleted between the two queries
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Order order = byId.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    // Loads every product of the order lines with one query, or throws for the first one missing
+    public Map<Long, Product> resolveProducts(List<OrderLine> lines) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderLine line : lines) {
+            productIds.add(line.getProductId());
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ProductNotFoundException(productId);
+            }
+        }
+        return products;
+    }
+}
@@ -0,0 +1,84 @@
+package com.springweb.service;
+
+import com.springweb.entity.Order;
+import com.springweb.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order counts per status and revenue, computed with one GROUP BY query and kept as a snapshot
+ * for a few seconds. Any order change drops the snapshot once the outbox dispatches it, so the
+ * dashboard polling this endpoint costs one query per change or per TTL, whichever comes first.
+ */
+@Service
+@org.springframework.core.annotation.Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OrderStatisticsService implements OutboxHandler {
+
+    private final OrderRepository orderRepository;
+
+    // Dropped on every committed order change
+    private final TimedSnapshot<Map<String, Object>> snapshot;
+
+    public OrderStatisticsService(OrderRepository orderRepository,
+            @Value("${springweb.order-statistics.ttl-ms:5000}") long ttlMillis) {
+        this.orderRepository = orderRepository;
+        this.snapshot = new TimedSnapshot<>(this::compute, ttlMillis);
+    }
+
+    public Map<String, Object> getStatistics() {
+        return snapshot.get();
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    @Override
+    public void handle(List<Object> events) {
+        if (events.stream().anyMatch(OrderChangedEvent.class::isInstance)) {
+            snapshot.invalidate();
+        }
+    }
+
+    private Map<String, Object> compute() {
+        Map<Order.OrderStatus, Long> countByStatus = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            countByStatus.put(status, 0L);
+        }
+
+        long totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        List<Object[]> rows = orderRepository.summarizeByStatus();
+        for (Object[] row : rows) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            long count = ((Number) row[1]).longValue();
+            BigDecimal amount = (BigDecimal) row[2];
+
+            totalOrders += count;
+            if (status != null) {
+                countByStatus.put(status, count);
+            }
+            if (status != Order.OrderStatus.CANCELLED) {
+                totalRevenue = totalRevenue.add(amount);
+            }
+        }
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalOrders", totalOrders);
+        statistics.put("pendingOrders", countByStatus.get(Order.OrderStatus.PENDING));
+        statistics.put("completedOrders", countByStatus.get(Order.OrderStatus.COMPLETED));
+        statistics.put("cancelledOrders", countByStatus.get(Order.OrderStatus.CANCELLED));
+        statistics.put("ordersByStatus", Collections.unmodifiableMap(countByStatus));
+        statistics.put("totalRevenue", totalRevenue);
+        return Collections.unmodifiableMap(statistics);
+    }
+}
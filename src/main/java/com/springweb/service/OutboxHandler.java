@@ -0,0 +1,23 @@
+package com.springweb.service;
+
+import java.util.List;
+
+/**
+ * Receives committed domain events from {@link OutboxService}, in batches and oldest first, on the
+ * outbox thread rather than the request that made the change. Delivery is at least once: a batch
+ * that fails, or was in flight when the application stopped, is delivered again, so handling must
+ * be idempotent. Handlers run in {@code @Order}; events of types a handler does not know are ignored.
+ */
+public interface OutboxHandler {
+
+    void handle(List<Object> events);
+
+    /**
+     * Whether the handler keeps its state in this node's memory. Such handlers see every event on
+     * every node, once the handlers that write to the database have taken it; those others share
+     * the events out, so each event reaches them on one node only.
+     */
+    default boolean isNodeLocal() {
+        return false;
+    }
+}
@@ -0,0 +1,451 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springweb.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transactional outbox for domain events. Every order, transaction, product and stock event is
+ * written to outbox_events in the transaction that made the change, in one batch just before it
+ * commits, so an event exists exactly when its change does. A single poller thread per node then
+ * hands the events to the {@link OutboxHandler}s in batches, in two passes:
+ * <ul>
+ * <li>Handlers that write to the database get each event on one node. A node claims a batch of
+ * undispatched events for a lease period, passing over rows another node is claiming, and marks
+ * them dispatched once every such handler has taken them; a claim left by a node that stopped
+ * expires and another node takes the events over.</li>
+ * <li>Node-local handlers, which keep state in memory, get every event on every node, once it has
+ * been dispatched, so they read what the database handlers wrote. Each node follows the event ids
+ * from its own high-water mark. Ids below the mark that it has not delivered yet, because their
+ * transaction had not committed or the database handlers had not finished with them, are looked up
+ * again on the next polls; an id that never shows up was rolled back and is dropped after a grace
+ * period.</li>
+ * </ul>
+ * Commits wake the poller, so handlers usually run within milliseconds, but never on the request thread.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Map.of(
+            OrderChangedEvent.class.getSimpleName(), OrderChangedEvent.class,
+            TransactionChangedEvent.class.getSimpleName(), TransactionChangedEvent.class,
+            ProductChangedEvent.class.getSimpleName(), ProductChangedEvent.class,
+            StockChangedEvent.class.getSimpleName(), StockChangedEvent.class);
+
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // Ids below the high-water mark still awaited, at most this many batches' worth
+    private static final int MAX_AWAITED_BATCHES = 10;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxHandler> sharedHandlers = new ArrayList<>();
+    private final List<OutboxHandler> localHandlers = new ArrayList<>();
+    private final String nodeName;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollIntervalMillis;
+    private final long retentionMillis;
+    private final long leaseMillis;
+    private final long gapGraceMillis;
+    private final ScheduledExecutorService poller;
+    private final Counter dispatched;
+    private final Counter failures;
+    private final Counter abandoned;
+
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private volatile boolean started;
+    private long lastPrunedAt;
+
+    // Node-local pass, poller thread only: every id up to the mark was read, and those still to be
+    // delivered below it are awaited
+    private long highWaterMark = -1;
+    private final NavigableMap<Long, Awaited> awaited = new TreeMap<>();
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+            List<OutboxHandler> handlers, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${springweb.outbox.batch-size:100}") int batchSize,
+            @Value("${springweb.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${springweb.outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+            @Value("${springweb.outbox.retention-ms:86400000}") long retentionMillis,
+            @Value("${springweb.outbox.lease-ms:60000}") long leaseMillis,
+            @Value("${springweb.outbox.gap-grace-ms:60000}") long gapGraceMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutboxHandler handler : handlers) {
+            (handler.isNodeLocal() ? localHandlers : sharedHandlers).add(handler);
+        }
+        this.nodeName = ManagementFactory.getRuntimeMXBean().getName();
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retentionMillis = retentionMillis;
+        this.leaseMillis = leaseMillis;
+        this.gapGraceMillis = gapGraceMillis;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatched = meterRegistry.counter("outbox.dispatched");
+        this.failures = meterRegistry.counter("outbox.failures");
+        this.abandoned = meterRegistry.counter("outbox.abandoned");
+    }
+
+    // Events collected during one transaction, written together right before it commits
+    private final class PendingEvents implements TransactionSynchronization {
+
+        private final List<String[]> events = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            outboxEventRepository.appendEvents(events, LocalDateTime.now());
+        }
+
+        @Override
+        public void afterCommit() {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Records a domain event in the current transaction. Outside a transaction the change it
+     * describes has already committed, so the event is written straight away on its own.
+     */
+    @EventListener({ OrderChangedEvent.class, TransactionChangedEvent.class, ProductChangedEvent.class,
+            StockChangedEvent.class })
+    public void record(Object event) {
+        String[] row = { event.getClass().getSimpleName(), toJson(event) };
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvents().events.add(row);
+        } else {
+            outboxEventRepository.appendEvents(Collections.singletonList(row), LocalDateTime.now());
+            wakeUp();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        started = true;
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        started = false;
+        poller.shutdown();
+        try {
+            // Let a batch in flight finish; anything left is delivered again on the next start
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims one batch of undispatched events and dispatches it to the database handlers. When the
+     * batch fails, its events are retried one at a time so a single bad event cannot hold the others
+     * back; an event that failed gives up its claim, and once it has failed max-attempts times it is
+     * logged and skipped. Returns true when a full batch went through, i.e. more events may be waiting.
+     */
+    boolean dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = transactionTemplate.execute(status -> outboxEventRepository.claimPendingEvents(
+                nodeName, now, now.plus(Duration.ofMillis(leaseMillis)), batchSize));
+        if (rows == null || rows.isEmpty()) {
+            return false;
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<Object> events = new ArrayList<>(rows.size());
+        List<Long> unreadable = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Object event = fromJson(id, (String) row[1], (String) row[2]);
+            if (event == null) {
+                unreadable.add(id);
+            } else {
+                ids.add(id);
+                events.add(event);
+            }
+        }
+        if (!unreadable.isEmpty()) {
+            outboxEventRepository.markDispatched(unreadable, LocalDateTime.now());
+            abandoned.increment(unreadable.size());
+        }
+
+        try {
+            deliver(sharedHandlers, events);
+            outboxEventRepository.markDispatched(ids, LocalDateTime.now());
+            dispatched.increment(ids.size());
+            return rows.size() == batchSize;
+        } catch (RuntimeException e) {
+            logger.warn("Outbox batch of {} events failed, retrying them one at a time", ids.size(), e);
+        }
+
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            int index = ids.indexOf(id);
+            if (index < 0) {
+                continue;
+            }
+            try {
+                deliver(sharedHandlers, List.of(events.get(index)));
+                outboxEventRepository.markDispatched(List.of(id), LocalDateTime.now());
+                dispatched.increment();
+            } catch (RuntimeException e) {
+                failures.increment();
+                int attempts = (Integer) row[3] + 1;
+                if (attempts >= maxAttempts) {
+                    logger.error("Giving up on outbox event {} ({}) after {} attempts", id, row[1], attempts, e);
+                    outboxEventRepository.markDispatched(List.of(id), LocalDateTime.now());
+                    abandoned.increment();
+                } else {
+                    outboxEventRepository.incrementAttempts(List.of(id));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delivers the next dispatched events after this node's high-water mark to the node-local
+     * handlers, after those awaited below it that have turned up since. Returns true when a full
+     * batch was read, i.e. more events may be waiting.
+     */
+    boolean deliverLocalBatch() {
+        if (localHandlers.isEmpty()) {
+            return false;
+        }
+        startHighWaterMark();
+        long now = System.currentTimeMillis();
+
+        if (!awaited.isEmpty()) {
+            Set<Long> found = new HashSet<>();
+            List<Object[]> ready = new ArrayList<>();
+            for (Object[] row : outboxEventRepository.findEventsByIds(new ArrayList<>(awaited.keySet()))) {
+                found.add((Long) row[0]);
+                if ((Boolean) row[3]) {
+                    ready.add(row);
+                }
+            }
+            // Rolled back, or pruned while this node was not looking
+            awaited.entrySet().removeIf(entry -> !found.contains(entry.getKey())
+                    && now - entry.getValue().since > gapGraceMillis);
+            deliverLocally(ready, now);
+        }
+        int maxAwaited = batchSize * MAX_AWAITED_BATCHES;
+        if (awaited.size() >= maxAwaited) {
+            // Wait for the database handlers to catch up before reading further
+            return false;
+        }
+
+        List<Object[]> rows = outboxEventRepository.findEventsAfter(highWaterMark, batchSize);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        List<Object[]> ready = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            // Every id skipped over may belong to a transaction that has not committed yet. Once the
+            // limit is reached the mark stops at the last one awaited, and the rest of the gap is read
+            // again after the database handlers catch up or the grace period drops ids that never came
+            while (highWaterMark + 1 < id) {
+                if (awaited.size() >= maxAwaited) {
+                    deliverLocally(ready, now);
+                    return false;
+                }
+                highWaterMark++;
+                awaited.putIfAbsent(highWaterMark, new Awaited(now));
+            }
+            if ((Boolean) row[3]) {
+                ready.add(row);
+            } else {
+                awaited.putIfAbsent(id, new Awaited(now));
+            }
+            highWaterMark = id;
+        }
+        deliverLocally(ready, now);
+        return rows.size() == batchSize;
+    }
+
+    // Helper method to hand dispatched rows to the node-local handlers, one at a time if the batch
+    // fails; a failed event stays awaited until it has failed max-attempts times
+    private void deliverLocally(List<Object[]> rows, long now) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<Object> events = new ArrayList<>(rows.size());
+        Map<Long, Awaited> retries = new HashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Object event = fromJson(id, (String) row[1], (String) row[2]);
+            retries.put(id, awaited.remove(id));
+            if (event != null) {
+                ids.add(id);
+                events.add(event);
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            deliver(localHandlers, events);
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Node-local outbox batch of {} events failed, retrying them one at a time", ids.size(), e);
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            try {
+                deliver(localHandlers, List.of(events.get(i)));
+            } catch (RuntimeException e) {
+                failures.increment();
+                Awaited retry = retries.get(id) != null ? retries.get(id) : new Awaited(now);
+                retry.attempts++;
+                if (retry.attempts >= maxAttempts) {
+                    logger.error("Giving up on outbox event {} on this node after {} attempts", id, retry.attempts, e);
+                    abandoned.increment();
+                } else {
+                    awaited.put(id, retry);
+                }
+            }
+        }
+    }
+
+    private void deliver(List<OutboxHandler> handlers, List<Object> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        for (OutboxHandler handler : handlers) {
+            handler.handle(events);
+        }
+    }
+
+    private void poll() {
+        try {
+            startHighWaterMark();
+            while (dispatchBatch()) {
+                // Keep going while full batches come back
+            }
+            while (deliverLocalBatch()) {
+                // Likewise for the events this node has not delivered locally yet
+            }
+            pruneIfDue();
+        } catch (RuntimeException e) {
+            // The poller must survive a database outage; the next poll retries
+            logger.warn("Outbox poll failed", e);
+        }
+    }
+
+    // Helper method to place the high-water mark on the first poll. In-memory state is built from the
+    // database at startup, so only events the database handlers have yet to dispatch matter; the mark
+    // is read before the first poll dispatches any
+    private void startHighWaterMark() {
+        if (highWaterMark < 0) {
+            highWaterMark = outboxEventRepository.findReplayStart();
+        }
+    }
+
+    // Helper method to drop dispatched events once they are older than the retention period
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPrunedAt < PRUNE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPrunedAt = now;
+        int pruned = outboxEventRepository.deleteDispatchedBefore(
+                LocalDateTime.now().minus(Duration.ofMillis(retentionMillis)));
+        if (pruned > 0) {
+            logger.info("Pruned {} dispatched outbox events", pruned);
+        }
+    }
+
+    // Helper method to poll now instead of at the next interval, without queueing duplicate polls
+    private void wakeUp() {
+        if (started && wakeUpPending.compareAndSet(false, true)) {
+            try {
+                poller.execute(() -> {
+                    wakeUpPending.set(false);
+                    poll();
+                });
+            } catch (RejectedExecutionException e) {
+                wakeUpPending.set(false);
+            }
+        }
+    }
+
+    // An event id below the high-water mark that this node has yet to deliver locally
+    private static final class Awaited {
+
+        private final long since;
+        private int attempts;
+
+        Awaited(long since) {
+            this.since = since;
+        }
+    }
+
+    // Helper method to find or register the event list of the current transaction
+    private PendingEvents pendingEvents() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents pending) {
+                return pending;
+            }
+        }
+        PendingEvents pending = new PendingEvents();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not record " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    // Returns null for an event that cannot be read back, which is then skipped
+    private Object fromJson(Long id, String eventType, String payload) {
+        Class<?> type = EVENT_TYPES.get(eventType);
+        if (type == null) {
+            logger.error("Skipping outbox event {} of unknown type {}", id, eventType);
+            return null;
+        }
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (JsonProcessingException e) {
+            logger.error("Skipping unreadable outbox event {} ({})", id, eventType, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Published whenever a product is created, edited or deleted through the product API, inside the
+ * transaction that makes the change. Stock movements are covered by {@link StockChangedEvent}.
+ */
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Long productId;
+    private final ChangeType changeType;
+
+    @JsonCreator
+    public ProductChangedEvent(@JsonProperty("productId") Long productId,
+            @JsonProperty("changeType") ChangeType changeType) {
+        this.productId = productId;
+        this.changeType = changeType;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+}
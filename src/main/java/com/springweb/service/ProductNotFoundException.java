@@ -0,0 +1,15 @@
+package com.springweb.service;
+
+public class ProductNotFoundException extends RuntimeException {
+
+    private final Long productId;
+
+    public ProductNotFoundException(Long productId) {
+        super("Product not found: " + productId);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
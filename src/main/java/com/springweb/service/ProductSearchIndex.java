@@ -0,0 +1,337 @@
+package com.springweb.service;
+
+import com.springweb.entity.Product;
+import com.springweb.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory trigram index over product names, SKUs and descriptions, so product searches no longer
+ * run a leading-wildcard LIKE over the products table. Every three-character run of a field points
+ * to the products containing it; a search intersects those lists for its terms, checks the few
+ * candidates left and ranks them, exact SKU and name matches first. The index is built when the
+ * application is ready and swapped in whole on a rebuild, so a search never sees half of one;
+ * product changes dispatched by the outbox are applied to it in place. Until an index has been
+ * built, searches fall back to the name query they replaced.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class ProductSearchIndex implements OutboxHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    // Long descriptions are searched by their opening only
+    private static final int MAX_DESCRIPTION = 2000;
+
+    private final ProductRepository productRepository;
+
+    // Rebuilds and the outbox thread both write; readers only ever see a complete index
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Index index;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    // Ids of the products matching every term of the query, best match first; null until the index is built
+    public List<Long> searchIds(String query) {
+        Index current = index;
+        if (current == null) {
+            return null;
+        }
+        List<String> terms = termsOf(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Long productId : current.candidates(terms)) {
+            Document document = current.documents.get(productId);
+            int score = document != null ? document.score(terms) : 0;
+            if (score > 0) {
+                matches.add(new Match(document, score));
+            }
+        }
+        matches.sort(Comparator.comparingInt((Match match) -> -match.score)
+                .thenComparing(match -> match.document.name)
+                .thenComparing(match -> match.document.id));
+
+        List<Long> productIds = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            productIds.add(match.document.id);
+        }
+        return productIds;
+    }
+
+    public List<Product> search(String query) {
+        List<Long> productIds = searchIds(query);
+        return productIds != null ? load(productIds) : productRepository.findByNameContainingIgnoreCase(query);
+    }
+
+    public Page<Product> search(String query, Pageable pageable) {
+        List<Long> productIds = searchIds(query);
+        if (productIds == null) {
+            return productRepository.findByNameContainingIgnoreCase(query, pageable);
+        }
+        int from = (int) Math.min(pageable.getOffset(), productIds.size());
+        int to = Math.min(from + pageable.getPageSize(), productIds.size());
+        return new PageImpl<>(load(productIds.subList(from, to)), pageable, productIds.size());
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    // Stock changes do not touch the indexed fields, so only product changes are applied
+    @Override
+    public void handle(List<Object> events) {
+        Set<Long> productIds = new HashSet<>();
+        for (Object event : events) {
+            if (event instanceof ProductChangedEvent product) {
+                productIds.add(product.getProductId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Index current = index;
+            if (current == null) {
+                // The startup build failed; this batch's changes are in the table it reads
+                rebuildLocked();
+                return;
+            }
+            Set<Long> deleted = new HashSet<>(productIds);
+            for (Object[] row : productRepository.findSearchRows(productIds)) {
+                Document document = documentOf(row);
+                deleted.remove(document.id);
+                current.put(document);
+            }
+            deleted.forEach(current::remove);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        try {
+            long started = System.nanoTime();
+            Index built = new Index();
+            for (Object[] row : productRepository.findSearchRows()) {
+                built.put(documentOf(row));
+            }
+            index = built;
+            logger.info("Product search index built over {} products in {} ms", built.documents.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            logger.error("Could not build the product search index; searches will query the database", e);
+        }
+    }
+
+    // Helper method to fetch products by id in the order of the ids
+    private List<Product> load(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            rank.put(productIds.get(i), i);
+        }
+        List<Product> products = new ArrayList<>(productRepository.findByIdIn(productIds));
+        products.sort(Comparator.comparingInt((Product product) -> rank.get(product.getId())));
+        return products;
+    }
+
+    // Helper method to read a [id, name, sku, description] row
+    private static Document documentOf(Object[] row) {
+        String description = normalize((String) row[3]);
+        if (description.length() > MAX_DESCRIPTION) {
+            description = description.substring(0, MAX_DESCRIPTION);
+        }
+        return new Document(((Number) row[0]).longValue(), normalize((String) row[1]), normalize((String) row[2]),
+                description);
+    }
+
+    private static List<String> termsOf(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String term : normalize(query).split("\\s+")) {
+            if (!term.isEmpty() && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+    }
+
+    private static final class Index {
+
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        // The new grams are added before the stale ones go, so a concurrent search never misses the product
+        void put(Document document) {
+            Document previous = documents.put(document.id, document);
+            for (String gram : document.grams) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(document.id);
+            }
+            if (previous != null) {
+                for (String gram : previous.grams) {
+                    if (!document.grams.contains(gram)) {
+                        removePosting(gram, document.id);
+                    }
+                }
+            }
+        }
+
+        void remove(Long productId) {
+            Document previous = documents.remove(productId);
+            if (previous != null) {
+                previous.grams.forEach(gram -> removePosting(gram, productId));
+            }
+        }
+
+        // Products holding every gram of the terms long enough to have one, smallest list first;
+        // terms shorter than a gram are checked against every product
+        Collection<Long> candidates(List<String> terms) {
+            Set<String> grams = new HashSet<>();
+            for (String term : terms) {
+                addGrams(term, grams);
+            }
+            if (grams.isEmpty()) {
+                return documents.keySet();
+            }
+
+            List<Set<Long>> lists = new ArrayList<>();
+            for (String gram : grams) {
+                Set<Long> productIds = postings.get(gram);
+                if (productIds == null) {
+                    return Collections.emptySet();
+                }
+                lists.add(productIds);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            Set<Long> candidates = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(lists.get(i));
+            }
+            return candidates;
+        }
+
+        private void removePosting(String gram, Long productId) {
+            postings.computeIfPresent(gram, (key, productIds) -> {
+                productIds.remove(productId);
+                return productIds.isEmpty() ? null : productIds;
+            });
+        }
+    }
+
+    private static final class Document {
+
+        private final Long id;
+        private final String name;
+        private final String sku;
+        private final String description;
+        private final Set<String> grams = new HashSet<>();
+
+        Document(Long id, String name, String sku, String description) {
+            this.id = id;
+            this.name = name;
+            this.sku = sku;
+            this.description = description;
+            addGrams(name, grams);
+            addGrams(sku, grams);
+            addGrams(description, grams);
+        }
+
+        // Zero unless every term matches a field
+        int score(List<String> terms) {
+            int total = 0;
+            for (String term : terms) {
+                int score = score(term);
+                if (score == 0) {
+                    return 0;
+                }
+                total += score;
+            }
+            return total;
+        }
+
+        private int score(String term) {
+            if (sku.equals(term)) {
+                return 100;
+            }
+            if (name.equals(term)) {
+                return 90;
+            }
+            if (name.startsWith(term)) {
+                return 60;
+            }
+            if (sku.startsWith(term)) {
+                return 50;
+            }
+            if (name.contains(" " + term)) {
+                return 40;
+            }
+            if (name.contains(term)) {
+                return 30;
+            }
+            if (sku.contains(term)) {
+                return 20;
+            }
+            return description.contains(term) ? 5 : 0;
+        }
+    }
+
+    private static final class Match {
+
+        private final Document document;
+        private final int score;
+
+        Match(Document document, int score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
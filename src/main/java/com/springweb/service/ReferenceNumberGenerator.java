@@ -0,0 +1,83 @@
+package com.springweb.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out unique, increasing numbers for orders and transactions.
+ * Each id packs milliseconds since 2024-01-01 (41 bits), a node id (10 bits) and a
+ * per-millisecond sequence (12 bits). When a millisecond runs out of sequence numbers,
+ * or the clock steps back, the generator keeps counting on the last timestamp it used
+ * instead of waiting, so it never blocks and never repeats. Two nodes sharing a node id would
+ * issue the same numbers, so springweb.node-id must be set, differently on every node.
+ */
+@Component
+public class ReferenceNumberGenerator {
+
+    private static final long EPOCH_MS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public ReferenceNumberGenerator(@Value("${springweb.node-id:-1}") long nodeId) {
+        this(requireNodeId(nodeId), System::currentTimeMillis);
+    }
+
+    ReferenceNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    // e.g. next("ORD") -> "ORD71234567890123456"
+    public String next(String prefix) {
+        return prefix + nextId();
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = current + 1;
+            } else {
+                // Sequence exhausted for this millisecond: borrow the next one
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    // Helper method to refuse to start without a configured node id
+    private static long requireNodeId(long nodeId) {
+        if (nodeId < 0) {
+            throw new IllegalStateException("springweb.node-id is not set; give every node its own id between 0 and "
+                    + MAX_NODE_ID + " (e.g. SPRINGWEB_NODE_ID=0)");
+        }
+        return nodeId;
+    }
+}
@@ -0,0 +1,204 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of report results, keyed by report name and its normalized parameters. Entries
+ * expire after a TTL, the least recently used one goes when the cache is full, and a committed
+ * change to orders, transactions or products drops every entry built from that data. Concurrent
+ * misses on one key share a single load, so a dashboard opened by several people at once costs
+ * the database one run of each report.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ReportCache implements OutboxHandler {
+
+    public enum Source {
+        ORDERS,
+        TRANSACTIONS,
+        PRODUCTS
+    }
+
+    private static final class Entry {
+
+        private final String report;
+        private final Set<Source> sources;
+        private final Map<String, Object> value;
+        private final long loadedAt;
+
+        private Entry(String report, Set<Source> sources, Map<String, Object> value, long loadedAt) {
+            this.report = report;
+            this.sources = sources;
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final long ttlMillis;
+
+    // Bumped on every invalidation; a load that overlapped one is returned but not stored
+    private final AtomicLong[] generations = new AtomicLong[Source.values().length];
+
+    // Access-ordered, guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> loading = new ConcurrentHashMap<>();
+
+    public ReportCache(MeterRegistry meterRegistry,
+            @Value("${springweb.report-cache.max-entries:200}") int maxEntries,
+            @Value("${springweb.report-cache.ttl-ms:60000}") long ttlMillis) {
+        this.meterRegistry = meterRegistry;
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = new AtomicLong();
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                meterRegistry.counter("report.cache.evictions", "report", eldest.getValue().report).increment();
+                return true;
+            }
+        };
+        meterRegistry.gauge("report.cache.size", this, ReportCache::size);
+    }
+
+    // Returns the cached result or runs the loader; the result is shared, so it is made unmodifiable
+    public Map<String, Object> get(String report, Set<Source> sources, Supplier<Map<String, Object>> loader,
+            Object... keyParts) {
+        String key = keyOf(report, keyParts);
+        Map<String, Object> cached = lookup(key);
+        if (cached != null) {
+            meterRegistry.counter("report.cache.hits", "report", report).increment();
+            return cached;
+        }
+
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            // Someone else is already running this report
+            meterRegistry.counter("report.cache.hits", "report", report).increment();
+            return join(running);
+        }
+
+        try {
+            // The previous loader may have stored its result between our lookup and putIfAbsent
+            cached = lookup(key);
+            if (cached != null) {
+                meterRegistry.counter("report.cache.hits", "report", report).increment();
+                mine.complete(cached);
+                return cached;
+            }
+
+            meterRegistry.counter("report.cache.misses", "report", report).increment();
+            long[] started = generationsOf(sources);
+            Map<String, Object> value = Collections.unmodifiableMap(loader.get());
+            if (Arrays.equals(started, generationsOf(sources))) {
+                store(key, new Entry(report, sources, value, System.currentTimeMillis()));
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    public void invalidate(Source source) {
+        generations[source.ordinal()].incrementAndGet();
+        synchronized (this) {
+            entries.values().removeIf(entry -> entry.sources.contains(source));
+        }
+        meterRegistry.counter("report.cache.invalidations", "source", source.name()).increment();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    // Drops each affected source once per batch. Runs as an outbox handler after the sales rollups
+    // and report snapshots are updated and before the live feed tells dashboards to reload, so a
+    // report reloaded right away reads fresh data
+    @Override
+    public void handle(List<Object> events) {
+        Set<Source> changed = EnumSet.noneOf(Source.class);
+        for (Object event : events) {
+            if (event instanceof OrderChangedEvent) {
+                changed.add(Source.ORDERS);
+            } else if (event instanceof TransactionChangedEvent) {
+                changed.add(Source.TRANSACTIONS);
+            } else if (event instanceof ProductChangedEvent || event instanceof StockChangedEvent) {
+                changed.add(Source.PRODUCTS);
+            }
+        }
+        changed.forEach(this::invalidate);
+    }
+
+    private synchronized Map<String, Object> lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    private long[] generationsOf(Set<Source> sources) {
+        long[] values = new long[generations.length];
+        for (Source source : sources) {
+            values[source.ordinal()] = generations[source.ordinal()].get();
+        }
+        return values;
+    }
+
+    // e.g. keyOf("sales", 2025-01-01, 2025-01-31, null) -> "sales|2025-01-01|2025-01-31|"
+    private static String keyOf(String report, Object... keyParts) {
+        StringBuilder key = new StringBuilder(report);
+        for (Object part : keyParts) {
+            key.append('|');
+            if (part != null) {
+                key.append(part.toString().trim().toLowerCase());
+            }
+        }
+        return key.toString();
+    }
+
+    private static Map<String, Object> join(CompletableFuture<Map<String, Object>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
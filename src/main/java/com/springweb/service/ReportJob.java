@@ -0,0 +1,121 @@
+package com.springweb.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A report computed in the background by {@link ReportJobService}. Status, stage and progress
+ * are written by the worker thread and read by polling requests, so they are volatile.
+ */
+public class ReportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final String reportType;
+    private final String description;
+    private final String submittedBy;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String stage = "queued";
+    private volatile int progress;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedAtMillis;
+    private volatile Map<String, Object> result;
+    private volatile String error;
+
+    public ReportJob(String id, String reportType, String description, String submittedBy) {
+        this.id = id;
+        this.reportType = reportType;
+        this.description = description;
+        this.submittedBy = submittedBy;
+    }
+
+    // Called by the worker as the job moves through its stages
+    public void advance(String stage, int progress) {
+        this.stage = stage;
+        this.progress = progress;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+        advance("running", 10);
+    }
+
+    void complete(Map<String, Object> result) {
+        this.result = result;
+        finish(Status.COMPLETED, "done");
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED, "failed");
+    }
+
+    private void finish(Status finalStatus, String finalStage) {
+        finishedAt = LocalDateTime.now();
+        finishedAtMillis = System.currentTimeMillis();
+        advance(finalStage, 100);
+        status = finalStatus;
+    }
+
+    boolean isFinishedBefore(long millis) {
+        return (status == Status.COMPLETED || status == Status.FAILED) && finishedAtMillis < millis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public int getProgress() {
+        return progress;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Map<String, Object> getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,103 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs long reports off the request threads, on a small fixed pool with a bounded queue, so
+ * heavy reports are capped independently of interactive traffic. A full queue rejects new jobs
+ * instead of letting them pile up. Finished jobs are kept for a retention period so their
+ * results can be fetched, then dropped.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitoredExecutor;
+    private final TransactionTemplate readOnly;
+    private final long retentionMillis;
+    private final ConcurrentHashMap<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    public ReportJobService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${springweb.report-jobs.threads:2}") int threads,
+            @Value("${springweb.report-jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${springweb.report-jobs.retention-ms:3600000}") long retentionMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "report.jobs");
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Queues a report and returns its job right away. The work function gets the job so it can
+     * report progress, and runs inside a read-only transaction on a worker thread.
+     * Throws RejectedExecutionException when the queue is full.
+     */
+    public ReportJob submit(String reportType, String description, String username,
+            Function<ReportJob, Map<String, Object>> work) {
+        purgeExpired();
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), reportType, description, username);
+        jobs.put(job.getId(), job);
+        try {
+            monitoredExecutor.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    // Jobs are only visible to the user who submitted them
+    public Optional<ReportJob> find(String id, String username) {
+        purgeExpired();
+        ReportJob job = jobs.get(id);
+        return job != null && job.getSubmittedBy().equals(username) ? Optional.of(job) : Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ReportJob job, Function<ReportJob, Map<String, Object>> work) {
+        job.start();
+        long startedAt = System.nanoTime();
+        try {
+            Map<String, Object> result = readOnly.execute(status -> work.apply(job));
+            job.complete(result);
+            logger.info("Report job {} ({}) finished in {} ms", job.getId(), job.getDescription(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (RuntimeException e) {
+            logger.warn("Report job {} ({}) failed", job.getId(), job.getDescription(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.isFinishedBefore(cutoff));
+    }
+}
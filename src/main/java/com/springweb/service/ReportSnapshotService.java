@@ -0,0 +1,200 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.springweb.entity.Report;
+import com.springweb.entity.User;
+import com.springweb.repository.ReportRepository;
+import com.springweb.repository.UserRepository;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores date-range reports for closed periods (ending before today) as gzipped JSON in the
+ * reports table, so a past month or quarter is computed once and read back afterwards. A late
+ * change to an order or transaction drops the snapshots whose period covers its date.
+ * As a node-local outbox handler it sees every change on every node, after the sales rollups and
+ * before the report cache, so each node can drop a snapshot it computed before the change was
+ * committed; a computation started on another node is that node's to guard.
+ */
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class ReportSnapshotService implements OutboxHandler {
+
+    // Report types built from orders and from transactions
+    public static final Set<String> ORDER_REPORTS = Set.of("sales", "financial-summary");
+    public static final Set<String> TRANSACTION_REPORTS = Set.of("revenue", "transaction-summary", "financial-summary");
+
+    private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader contentReader;
+    private final TransactionTemplate requiresNew;
+
+    // Bumped on every eviction on this node; a snapshot computed across one is returned but not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public ReportSnapshotService(ReportRepository reportRepository, UserRepository userRepository,
+            ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        // Amounts come back as BigDecimal, as they were produced
+        this.contentReader = objectMapper.readerFor(Map.class).with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static boolean isClosed(LocalDate periodEnd) {
+        return periodEnd.isBefore(LocalDate.now());
+    }
+
+    // Serves closed periods from the store, computing and storing them on first use; open periods are computed
+    public Map<String, Object> getOrCompute(String reportType, LocalDate start, LocalDate end, String parameters,
+            String username, Supplier<Map<String, Object>> generator) {
+        if (!isClosed(end)) {
+            return generator.get();
+        }
+        return decode(findOrCreate(reportType, start, end, parameters, username, generator));
+    }
+
+    // Throws IllegalArgumentException for a period that has not ended yet
+    public Report findOrCreate(String reportType, LocalDate start, LocalDate end, String parameters,
+            String username, Supplier<Map<String, Object>> generator) {
+        if (!isClosed(end)) {
+            throw new IllegalArgumentException("Only periods that ended before today can be stored");
+        }
+        Optional<Report> stored = reportRepository.findByReportTypeAndPeriodStartAndPeriodEndAndParameters(
+                reportType, start, end, parameters);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        long startedGeneration = generation.get();
+        byte[] json = toJson(generator.get());
+
+        User generatedBy = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+        Report report = new Report(reportType, generatedBy, null);
+        report.setPeriodStart(start);
+        report.setPeriodEnd(end);
+        report.setParameters(parameters);
+        report.setPayload(gzip(json));
+        report.setContentLength(json.length);
+
+        if (generation.get() != startedGeneration) {
+            return report;
+        }
+        Report saved;
+        try {
+            saved = requiresNew.execute(status -> reportRepository.save(report));
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same snapshot first
+            return reportRepository.findByReportTypeAndPeriodStartAndPeriodEndAndParameters(
+                    reportType, start, end, parameters).orElse(report);
+        }
+        // An eviction counted from here on deletes after the save and takes the row with it; one
+        // counted since the check above may have deleted before the save, so the row is removed here
+        if (generation.get() != startedGeneration) {
+            requiresNew.executeWithoutResult(status -> reportRepository.deleteById(saved.getId()));
+            return report;
+        }
+        return saved;
+    }
+
+    public Map<String, Object> decode(Report report) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(report.getPayload()))) {
+            return contentReader.readValue(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable snapshot " + report.getId(), e);
+        }
+    }
+
+    public Optional<Report> findById(Long id) {
+        return reportRepository.findById(id).filter(report -> report.getPayload() != null);
+    }
+
+    // Rows of [id, type, period start, period end, parameters, generated at, content length], newest first
+    public Page<Object[]> list(String reportType, Pageable pageable) {
+        return reportType != null && !reportType.isEmpty()
+                ? reportRepository.findSnapshotSummariesByType(reportType, pageable)
+                : reportRepository.findSnapshotSummaries(pageable);
+    }
+
+    public void evict(Collection<String> reportTypes, LocalDate from, LocalDate to) {
+        generation.incrementAndGet();
+        requiresNew.executeWithoutResult(status -> reportRepository.deleteSnapshotsOverlapping(reportTypes, from, to));
+    }
+
+    // Drops the snapshots covering each closed day that an order or transaction change touched
+    @Override
+    public void handle(List<Object> events) {
+        Set<LocalDate> orderDays = new TreeSet<>();
+        Set<LocalDate> transactionDays = new TreeSet<>();
+        for (Object event : events) {
+            if (event instanceof OrderChangedEvent order && order.getPlacedAt() != null) {
+                orderDays.add(order.getPlacedAt().toLocalDate());
+            } else if (event instanceof TransactionChangedEvent transaction && transaction.getTransactionDate() != null) {
+                transactionDays.add(transaction.getTransactionDate().toLocalDate());
+            }
+        }
+        for (LocalDate day : orderDays) {
+            if (isClosed(day)) {
+                evict(ORDER_REPORTS, day, day);
+            }
+        }
+        for (LocalDate day : transactionDays) {
+            if (isClosed(day)) {
+                evict(TRANSACTION_REPORTS, day, day);
+            }
+        }
+    }
+
+    @Override
+    public boolean isNodeLocal() {
+        return true;
+    }
+
+    private byte[] toJson(Map<String, Object> content) {
+        try {
+            return objectMapper.writeValueAsBytes(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,115 @@
+package com.springweb.service;
+
+import com.springweb.repository.DailySalesRepository;
+import com.springweb.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps daily_sales and daily_category_sales in step with orders. The unit of maintenance is
+ * one day: when an order is created, edited, cancelled or deleted, the day it was placed on is
+ * recomputed from its orders in the database when the outbox dispatches the change, first among
+ * the handlers. Days are small, so this stays cheap and cannot drift the way adding and
+ * subtracting deltas can.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SalesRollupService implements OutboxHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DailySalesRepository dailySalesRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate requiresNew;
+
+    // Two recomputes of the same day would both delete and re-insert its rows
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public SalesRollupService(DailySalesRepository dailySalesRepository, OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager) {
+        this.dailySalesRepository = dailySalesRepository;
+        this.orderRepository = orderRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Recomputes each day touched by the batch once, however many of its orders changed. A failure
+    // is left to the outbox, which delivers the batch again
+    @Override
+    public void handle(List<Object> events) {
+        Set<LocalDate> days = new TreeSet<>();
+        for (Object event : events) {
+            if (event instanceof OrderChangedEvent order && order.getPlacedAt() != null) {
+                days.add(order.getPlacedAt().toLocalDate());
+            }
+        }
+        for (LocalDate day : days) {
+            rebuild(day, day);
+        }
+    }
+
+    // Fills the rollups on first start against a database that already has orders
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailySalesRepository.count() > 0) {
+            return;
+        }
+        LocalDateTime earliest = orderRepository.findEarliestPlacedAt();
+        if (earliest == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        logger.info("Backfilling sales rollups from {} to {}", earliest.toLocalDate(), today);
+        rebuild(earliest.toLocalDate(), today);
+    }
+
+    // Recomputes every day from 'from' to 'to', inclusive, one month per transaction
+    public void rebuild(LocalDate from, LocalDate to) {
+        LocalDate chunkStart = from;
+        while (!chunkStart.isAfter(to)) {
+            LocalDate chunkEnd = chunkStart.plusMonths(1).minusDays(1);
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+            rebuildChunk(chunkStart, chunkEnd);
+            chunkStart = chunkEnd.plusDays(1);
+        }
+    }
+
+    private void rebuildChunk(LocalDate from, LocalDate to) {
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    requiresNew.executeWithoutResult(status -> dailySalesRepository.rebuildRollups(from, to));
+                    return;
+                } catch (DataIntegrityViolationException e) {
+                    // Another node inserted the same day between our delete and insert
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Set;
+
+/**
+ * Published by {@link StockService} whenever stock is taken or returned, and by the product API
+ * when a product is saved with a new stock level. It names the products only; handlers that need
+ * the new levels read them once the change has committed.
+ */
+public class StockChangedEvent {
+
+    private final Set<Long> productIds;
+
+    @JsonCreator
+    public StockChangedEvent(@JsonProperty("productIds") Set<Long> productIds) {
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+}
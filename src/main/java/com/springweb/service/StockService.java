@@ -0,0 +1,95 @@
+package com.springweb.service;
+
+import com.springweb.entity.OrderItem;
+import com.springweb.repository.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Single entry point for stock taken and returned by orders; an absolute level set from the product
+ * form is saved with the product itself. Every change is a conditional UPDATE on the
+ * products table, so concurrent orders never read-modify-write the same row. The lines
+ * of one call are sent as a JDBC batch and run in the caller's transaction if there is one.
+ * Each successful call publishes a {@link StockChangedEvent} for the products it touched.
+ */
+@Service
+public class StockService {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StockService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Takes stock for every product in the map, or nothing at all
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        applyDeltas(quantities);
+    }
+
+    // Returns stock for every product in the map
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        applyDeltas(negate(quantities));
+    }
+
+    // Positive deltas are taken from stock, negative deltas are returned to it
+    @Transactional
+    public void apply(Map<Long, Integer> deltas) {
+        applyDeltas(deltas);
+    }
+
+    private void applyDeltas(Map<Long, Integer> deltas) {
+        // Takes and returns stock in one pass sorted by id, so concurrent orders lock rows in the same order
+        Map<Long, Integer> sorted = new TreeMap<>(deltas);
+        sorted.values().removeIf(delta -> delta == 0);
+
+        List<Long> rejected = new ArrayList<>();
+        int[] counts = productRepository.batchApplyStockDeltas(sorted);
+        int line = 0;
+        for (Long productId : sorted.keySet()) {
+            // A zero count means the stock guard did not match
+            if (counts[line++] == 0) {
+                rejected.add(productId);
+            }
+        }
+
+        // Throwing rolls back the lines that did succeed
+        if (!rejected.isEmpty()) {
+            throw new InsufficientStockException(rejected);
+        }
+        if (!sorted.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(sorted.keySet()));
+        }
+    }
+
+    // Helper method to sum item quantities per product
+    public static Map<Long, Integer> quantitiesOf(Collection<OrderItem> items) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (items != null) {
+            for (OrderItem item : items) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    // Helper method to compute the stock still to take when items change from previous to next
+    public static Map<Long, Integer> difference(Map<Long, Integer> next, Map<Long, Integer> previous) {
+        Map<Long, Integer> deltas = new HashMap<>(next);
+        previous.forEach((productId, quantity) -> deltas.merge(productId, -quantity, Integer::sum));
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    public static Map<Long, Integer> negate(Map<Long, Integer> quantities) {
+        Map<Long, Integer> negated = new HashMap<>();
+        quantities.forEach((productId, quantity) -> negated.put(productId, -quantity));
+        return negated;
+    }
+}
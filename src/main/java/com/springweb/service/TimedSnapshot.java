@@ -0,0 +1,73 @@
+package com.springweb.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A value computed on demand and served for a few seconds, or until {@link #invalidate()} is called
+ * for a change it depends on. A value computed across an invalidation goes back to its caller but is
+ * not served again. Callers that find the value stale wait for one computation rather than each
+ * running their own.
+ */
+final class TimedSnapshot<T> {
+
+    private final Supplier<T> loader;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    // Bumped on every invalidation; a value from an older generation is stale
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry<T> entry;
+
+    TimedSnapshot(Supplier<T> loader, long ttlMillis) {
+        this(loader, ttlMillis, System::currentTimeMillis);
+    }
+
+    TimedSnapshot(Supplier<T> loader, long ttlMillis, LongSupplier clock) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    private static final class Entry<T> {
+
+        private final T value;
+        private final long computedAt;
+        private final long generation;
+
+        private Entry(T value, long computedAt, long generation) {
+            this.value = value;
+            this.computedAt = computedAt;
+            this.generation = generation;
+        }
+    }
+
+    T get() {
+        Entry<T> current = entry;
+        if (isFresh(current)) {
+            return current.value;
+        }
+        synchronized (this) {
+            // Another caller may have refreshed while this one waited
+            current = entry;
+            if (isFresh(current)) {
+                return current.value;
+            }
+            long startedGeneration = generation.get();
+            T value = loader.get();
+            entry = new Entry<>(value, clock.getAsLong(), startedGeneration);
+            return value;
+        }
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private boolean isFresh(Entry<T> current) {
+        return current != null
+                && current.generation == generation.get()
+                && clock.getAsLong() - current.computedAt < ttlMillis;
+    }
+}
@@ -0,0 +1,57 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.springweb.entity.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a transaction is created, edited, changes status or is deleted, inside the
+ * transaction that makes the change so {@link OutboxService} records it atomically.
+ */
+public class TransactionChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final Long transactionId;
+    private final LocalDateTime transactionDate;
+    private final ChangeType changeType;
+    private final Transaction.TransactionStatus status;
+
+    public TransactionChangedEvent(Long transactionId, LocalDateTime transactionDate, ChangeType changeType) {
+        this(transactionId, transactionDate, changeType, null);
+    }
+
+    @JsonCreator
+    public TransactionChangedEvent(@JsonProperty("transactionId") Long transactionId,
+            @JsonProperty("transactionDate") LocalDateTime transactionDate,
+            @JsonProperty("changeType") ChangeType changeType,
+            @JsonProperty("status") Transaction.TransactionStatus status) {
+        this.transactionId = transactionId;
+        this.transactionDate = transactionDate;
+        this.changeType = changeType;
+        this.status = status;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Transaction.TransactionStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,22 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Optimistic locking version columns on the mutable tables.
+ */
+public class V3__add_optimistic_lock_versions extends BaseJavaMigration {
+
+    private static final String[] TABLES = {"orders", "order_items", "products", "transactions"};
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (String table : TABLES) {
+            SchemaInspector.addColumnIfMissing(connection, table, "version", "BIGINT NOT NULL DEFAULT 0");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Seek indexes for the newest-first order and transaction feeds (?after= cursors).
+ * The feeds order by (timestamp, id) and resume with
+ * {@code placed_at < ? OR (placed_at = ? AND id < ?)}, so each window is an index range scan
+ * however deep the client has paged.
+ */
+public class V5__keyset_feed_indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        SchemaInspector.createIndexIfMissing(connection, "orders", "idx_orders_placed_at_id", "placed_at, id");
+        SchemaInspector.createIndexIfMissing(connection, "transactions", "idx_transactions_date_id",
+                "transaction_date, id");
+    }
+}
@@ -0,0 +1,24 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * The transaction list filters on status, type and payment method and sorts by created_at
+ * by default, so each filter gets an index that also returns rows in list order.
+ */
+public class V6__transaction_filter_indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        SchemaInspector.createIndexIfMissing(connection, "transactions", "idx_transactions_status_created",
+                "status, created_at");
+        SchemaInspector.createIndexIfMissing(connection, "transactions", "idx_transactions_type_created",
+                "transaction_type, created_at");
+        SchemaInspector.createIndexIfMissing(connection, "transactions", "idx_transactions_payment_created",
+                "payment_method, created_at");
+    }
+}
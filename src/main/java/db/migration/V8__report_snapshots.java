@@ -0,0 +1,26 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Snapshots of date-range reports for closed periods, stored once per type, period and parameters.
+ */
+public class V8__report_snapshots extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        SchemaInspector.addColumnIfMissing(connection, "reports", "period_start", "DATE NULL");
+        SchemaInspector.addColumnIfMissing(connection, "reports", "period_end", "DATE NULL");
+        SchemaInspector.addColumnIfMissing(connection, "reports", "parameters", "VARCHAR(255) NULL");
+        SchemaInspector.addColumnIfMissing(connection, "reports", "payload", "LONGBLOB NULL");
+        SchemaInspector.addColumnIfMissing(connection, "reports", "content_length", "INT NULL");
+        if (!SchemaInspector.hasIndex(connection, "reports", "uk_reports_snapshot")) {
+            SchemaInspector.execute(connection, "CREATE UNIQUE INDEX uk_reports_snapshot"
+                    + " ON reports (report_type, period_start, period_end, parameters)");
+        }
+    }
+}
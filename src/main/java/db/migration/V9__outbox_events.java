@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Domain events recorded in the same transaction as the change they describe; OutboxService
+ * dispatches them to in-process handlers and prunes them once dispatched.
+ */
+public class V9__outbox_events extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!SchemaInspector.hasTable(connection, "outbox_events")) {
+            SchemaInspector.execute(connection, "CREATE TABLE outbox_events ("
+                    + " id BIGINT NOT NULL AUTO_INCREMENT,"
+                    + " event_type VARCHAR(60) NOT NULL,"
+                    + " payload TEXT NOT NULL,"
+                    + " created_at DATETIME(6) NOT NULL,"
+                    + " dispatched_at DATETIME(6),"
+                    + " attempts INT NOT NULL,"
+                    + " PRIMARY KEY (id))");
+        }
+        SchemaInspector.createIndexIfMissing(connection, "outbox_events", "idx_outbox_events_pending",
+                "dispatched_at, id");
+    }
+}
@@ -0,0 +1,26 @@
+-- Indexes for the status filters and reports in OrderRepository, TransactionRepository and
+-- ProductRepository that MySQL cannot serve from an earlier index. Each note gives the EXPLAIN
+-- plan it is for. Other lookups already have an index and get none here:
+--   * transactions by order (findByOrderIdAndStatus) read the InnoDB foreign key index on order_id
+--     with type=ref, and filter the few rows of one order on status;
+--   * date ranges without a status read the V5 (placed_at, id) and (transaction_date, id) indexes.
+-- Amount ranges, the by-amount sorts and the plain stock threshold are rare listings over small
+-- results or a small table, so they keep their full scans instead of adding to every write.
+
+-- Orders. countByStatus: type=ref on status, "Using index", so the count never reads a row.
+-- findByStatusAndDateRange: type=range on both key parts, reading only the rows of that status
+-- in the period, where (placed_at, id) would read the whole period and drop the other statuses.
+-- summarizeByStatus: type=index, grouping in index order with no temporary table.
+CREATE INDEX idx_orders_status_placed_at ON orders (status, placed_at);
+
+-- Transactions. findByStatusAndDateRange and the revenue sum (sumCompletedAmountByDateRange):
+-- type=range on both key parts. The V6 (status, created_at) index could only use status here,
+-- which is a type=ref over every COMPLETED row, most of the table.
+CREATE INDEX idx_transactions_status_date ON transactions (status, transaction_date);
+-- findByTransactionTypeAndStatus: type=ref on the first two key parts. The per-type totals
+-- (sumAmountByTransactionTypeAndStatus, getRevenueByTransactionType) also read amount from the
+-- index, "Using index", with no row lookups.
+CREATE INDEX idx_transactions_status_type ON transactions (status, transaction_type, amount);
+
+-- Products. countLowStockActiveProducts: type=range on both key parts, "Using index".
+CREATE INDEX idx_products_active_stock ON products (is_active, stock_quantity);
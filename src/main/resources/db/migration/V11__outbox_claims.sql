@@ -0,0 +1,4 @@
+-- Claims on outbox events, so several application nodes share out the database-writing handlers:
+-- a node dispatches the events it claimed, and others take them over once the claim has expired.
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(100) NULL;
+ALTER TABLE outbox_events ADD COLUMN claimed_until DATETIME(6) NULL;
@@ -0,0 +1,130 @@
+-- Schema as it stood before V2, when Hibernate created the tables (ddl-auto=update). A new database
+-- starts here; one created by those releases already has it and is baselined at V1, so V2 onwards
+-- still run (see application.properties).
+-- Ids are AUTO_INCREMENT as they were then; V4 moves orders, order_items, products and transactions
+-- to the pooled id generators. The categories tracking columns were first added by an unversioned
+-- script (add_user_tracking_to_categories.sql) and are part of the baseline.
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    access_code VARCHAR(2) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    gender VARCHAR(255) NOT NULL,
+    profile_image VARCHAR(255),
+    bio TEXT,
+    facebook_url VARCHAR(255),
+    instagram_url VARCHAR(255),
+    twitter_url VARCHAR(255),
+    github_url VARCHAR(255),
+    youtube_url VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE categories (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    description TEXT,
+    created_at DATETIME(6),
+    created_by VARCHAR(50),
+    last_modified_at DATETIME(6),
+    last_modified_by VARCHAR(50),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+CREATE TABLE suppliers (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(150) NOT NULL,
+    contact_name VARCHAR(100),
+    contact_email VARCHAR(100),
+    phone VARCHAR(20),
+    address TEXT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE products (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(150) NOT NULL,
+    sku VARCHAR(100),
+    description TEXT,
+    price DECIMAL(10, 2) NOT NULL,
+    stock_quantity INT NOT NULL,
+    category_id BIGINT NOT NULL,
+    supplier_id BIGINT,
+    is_active BIT NOT NULL,
+    reorder_level INT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_products_sku UNIQUE (sku),
+    CONSTRAINT fk_products_category FOREIGN KEY (category_id) REFERENCES categories (id),
+    CONSTRAINT fk_products_supplier FOREIGN KEY (supplier_id) REFERENCES suppliers (id)
+);
+
+CREATE TABLE orders (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    order_number VARCHAR(255),
+    user_id BIGINT NOT NULL,
+    customer_name VARCHAR(255),
+    customer_email VARCHAR(255),
+    customer_phone VARCHAR(255),
+    customer_address TEXT,
+    total_amount DECIMAL(10, 2) NOT NULL,
+    status ENUM('PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'COMPLETED', 'CANCELLED', 'REFUNDED'),
+    shipping_address TEXT,
+    billing_address TEXT,
+    placed_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_orders_order_number UNIQUE (order_number),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE order_items (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    total_price DECIMAL(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    transaction_number VARCHAR(255),
+    order_id BIGINT NOT NULL,
+    payment_method ENUM('CASH', 'CREDIT_CARD', 'DEBIT_CARD', 'PAYPAL', 'BANK_TRANSFER', 'OTHER'),
+    transaction_type ENUM('PAYMENT', 'REFUND', 'ADJUSTMENT', 'FEE'),
+    amount DECIMAL(10, 2) NOT NULL,
+    description TEXT,
+    transaction_date DATETIME(6),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    status ENUM('PENDING', 'COMPLETED', 'FAILED', 'CANCELLED', 'REFUNDED'),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_transactions_transaction_number UNIQUE (transaction_number),
+    CONSTRAINT fk_transactions_order FOREIGN KEY (order_id) REFERENCES orders (id)
+);
+
+CREATE TABLE reports (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    report_type VARCHAR(100) NOT NULL,
+    generated_by BIGINT,
+    generated_at DATETIME(6),
+    content TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reports_generated_by FOREIGN KEY (generated_by) REFERENCES users (id)
+);
+
+CREATE TABLE settings (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    setting_key VARCHAR(100) NOT NULL,
+    setting_value TEXT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_settings_setting_key UNIQUE (setting_key)
+);
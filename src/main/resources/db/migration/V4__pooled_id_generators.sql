@@ -0,0 +1,25 @@
+-- Table-backed id generators used by orders, order_items, products and transactions.
+-- Ids are handed out in blocks of 50 (pooled-lo), which lets Hibernate batch inserts.
+-- Releases that let Hibernate update the schema created and seeded this table already; their
+-- rows are kept, since ids may have been issued from them.
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
+-- Start each generator after the ids already issued by AUTO_INCREMENT
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'orders', issued.next_val FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_val FROM orders) issued
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'orders');
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'order_items', issued.next_val FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_val FROM order_items) issued
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'order_items');
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'products', issued.next_val FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_val FROM products) issued
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'products');
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'transactions', issued.next_val FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_val FROM transactions) issued
+WHERE NOT EXISTS (SELECT 1 FROM id_generators WHERE sequence_name = 'transactions');
@@ -0,0 +1,22 @@
+-- Daily sales rollups read by the sales report; SalesRollupService recomputes a day whenever one
+-- of its orders changes and backfills both tables on first start. Releases that let Hibernate update
+-- the schema may have created the tables already.
+CREATE TABLE IF NOT EXISTS daily_sales (
+    sales_date DATE NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (sales_date)
+);
+
+CREATE TABLE IF NOT EXISTS daily_category_sales (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    sales_date DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DECIMAL(14, 2) NOT NULL,
+    order_count BIGINT NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_daily_category_sales_day_category UNIQUE (sales_date, category_id)
+);
@@ -53,6 +53,7 @@ class Dashboard {
     constructor() {
         this.currentModule = 'dashboard';
         this.currentEditId = null;
+        this.currentEditVersion = null;
         this.isInitialized = false;
         this.loadingState = false;
         this.productOptions = []; // Initialize product options cache as empty array
@@ -116,6 +117,7 @@ class Dashboard {
             this.bindEvents();
             this.loadModule('dashboard');
             this.initDateInputs();
+            this.connectLiveFeed();
             this.isInitialized = true;
             console.log('Dashboard initialized successfully');
         } catch (error) {
@@ -207,6 +209,7 @@ class Dashboard {
         // Sign out
         document.getElementById('signOut').addEventListener('click', async (e) => {
             e.preventDefault();
+            this.liveFeed?.close();
 
             try {
                 const response = await fetch('/api/logout', {
@@ -273,11 +276,10 @@ class Dashboard {
             this.showChartLoadingState('paymentMethodChart', 'Loading Payment Data...');
 
             // Fetch all data in parallel
-            const [revenueResponse, salesResponse, inventoryResponse, lowStockResponse, transactionResponse] = await Promise.all([
+            const [revenueResponse, salesResponse, inventoryResponse, transactionResponse] = await Promise.all([
                 fetch(`/api/reports/revenue?startDate=${startDate.toISOString().split('T')[0]}&groupBy=daily`),
                 fetch(`/api/reports/sales?startDate=${startDate.toISOString().split('T')[0]}`),
-                fetch('/api/reports/inventory'),
-                fetch('/api/reports/low-stock?threshold=10'),
+                fetch('/api/reports/inventory?threshold=10'),
                 fetch(`/api/reports/transaction-summary?startDate=${startDate.toISOString().split('T')[0]}`)
             ]);
 
@@ -318,31 +320,19 @@ class Dashboard {
                 throw new Error('Failed to fetch sales data');
             }
 
-            // Process inventory and low stock data
-            if (inventoryResponse.ok && lowStockResponse.ok) {
-                const [inventoryData, lowStockData] = await Promise.all([
-                    inventoryResponse.json(),
-                    lowStockResponse.json()
-                ]);
+            // Process inventory data; low stock units come with the per-category summary
+            if (inventoryResponse.ok) {
+                const inventoryData = await inventoryResponse.json();
 
-                if (inventoryData.success && inventoryData.report && lowStockData.success && lowStockData.report) {
-                    // Process inventory data
-                    const productsByCategory = inventoryData.report.productsByCategory;
-                    const lowStockByCategory = lowStockData.report.lowStockByCategory;
+                if (inventoryData.success && inventoryData.report) {
+                    const summaryByCategory = inventoryData.report.categories;
 
                     // Transform data for the chart
-                    const categories = Object.keys(productsByCategory);
+                    const categories = Object.keys(summaryByCategory);
                     const stockData = categories.map(category => ({
                         category,
-                        normal: productsByCategory[category].reduce((sum, product) => {
-                            const isLowStock = lowStockByCategory[category]?.some(
-                                lowStock => lowStock.id === product.id
-                            );
-                            return sum + (isLowStock ? 0 : product.stock);
-                        }, 0),
-                        low: lowStockByCategory[category]?.reduce(
-                            (sum, product) => sum + product.stock, 0
-                        ) || 0
+                        normal: summaryByCategory[category].totalStock - summaryByCategory[category].lowStockUnits,
+                        low: summaryByCategory[category].lowStockUnits
                     }));
 
                     this.initStockChart({ categories, stockData });
@@ -1165,54 +1155,53 @@ class Dashboard {
         this.initializeCharts();
     }
 
-    async loadDashboardStats() {
-        try {
-            const requests = [
-                fetch('/api/products').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/orders').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/categories').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/suppliers').then(r => r.ok ? r.json() : { totalElements: 0 })
-            ];
-
-            const [products, orders, categories, suppliers] = await Promise.all(requests);
+    // Change notices pushed by the server; each one reloads the screen it affects, if it is open
+    connectLiveFeed() {
+        if (!window.EventSource || this.liveFeed) {
+            return;
+        }
 
-            // Extract the total counts properly
-            const totalProducts = products.content ? products.content.length : 0;
-            const totalOrders = orders.content ? orders.content.length : 0;
-            const totalCategories = categories.content ? categories.content.length : 0;
-            const totalSuppliers = suppliers.content ? suppliers.content.length : 0;
+        this.liveFeed = new EventSource('/api/dashboard/live');
+        this.liveFeed.addEventListener('order', () => this.scheduleLiveRefresh(['orders', 'dashboard']));
+        this.liveFeed.addEventListener('transaction', () => this.scheduleLiveRefresh(['transactions', 'dashboard']));
+        this.liveFeed.addEventListener('product', () => this.scheduleLiveRefresh(['products', 'dashboard']));
+        this.liveFeed.addEventListener('stock', () => this.scheduleLiveRefresh(['products', 'dashboard']));
+        this.liveFeed.addEventListener('low-stock', (event) => {
+            const alert = JSON.parse(event.data);
+            this.showInfoMessage(`Product #${alert.id} is at or below its reorder level (${alert.stock} left, reorder at ${alert.reorderLevel})`);
+        });
+        // Sent when this client fell behind and notices were dropped
+        this.liveFeed.addEventListener('resync', () => this.scheduleLiveRefresh([this.currentModule]));
+    }
 
-            document.getElementById('totalProducts').textContent = totalProducts;
-            document.getElementById('totalOrders').textContent = totalOrders;
-            document.getElementById('totalCategories').textContent = totalCategories;
-            document.getElementById('totalSuppliers').textContent = totalSuppliers;
-        } catch (error) {
-            console.error('Error loading dashboard stats:', error);
-            document.getElementById('totalProducts').textContent = '0';
-            document.getElementById('totalOrders').textContent = '0';
-            document.getElementById('totalCategories').textContent = '0';
-            document.getElementById('totalSuppliers').textContent = '0';
+    // Coalesces a burst of notices into one reload of the visible screen
+    scheduleLiveRefresh(modules) {
+        if (!modules.includes(this.currentModule) || this.liveRefreshTimer) {
+            return;
         }
+
+        this.liveRefreshTimer = setTimeout(() => {
+            this.liveRefreshTimer = null;
+            if (this.currentModule === 'dashboard') {
+                this.loadDashboardStats();
+            } else if (MODULE_FIELD_CONFIGS[this.currentModule]) {
+                this.loadData(this.currentModule);
+            }
+        }, 500);
     }
 
-    async loadDashboardStatsFallback() {
+    async loadDashboardStats() {
         try {
-            const requests = [
-                fetch('/api/products?size=1').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/orders?size=1').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/categories?size=1').then(r => r.ok ? r.json() : { totalElements: 0 }),
-                fetch('/api/suppliers?size=1').then(r => r.ok ? r.json() : { totalElements: 0 })
-            ];
-
-            const [products, orders, categories, suppliers] = await Promise.all(requests);
-
-            document.getElementById('totalProducts').textContent = products.totalElements || 0;
-            document.getElementById('totalOrders').textContent = orders.totalElements || 0;
-            document.getElementById('totalCategories').textContent = categories.totalElements || 0;
-            document.getElementById('totalSuppliers').textContent = suppliers.totalElements || 0;
+            const response = await fetch('/api/dashboard/summary');
+            const data = response.ok ? await response.json() : {};
+            const summary = data.summary || {};
+
+            document.getElementById('totalProducts').textContent = summary.totalProducts || 0;
+            document.getElementById('totalOrders').textContent = summary.totalOrders || 0;
+            document.getElementById('totalCategories').textContent = summary.totalCategories || 0;
+            document.getElementById('totalSuppliers').textContent = summary.totalSuppliers || 0;
         } catch (error) {
-            console.error('Error loading dashboard stats fallback:', error);
-            // Set zeros as final fallback
+            console.error('Error loading dashboard stats:', error);
             document.getElementById('totalProducts').textContent = '0';
             document.getElementById('totalOrders').textContent = '0';
             document.getElementById('totalCategories').textContent = '0';
@@ -1810,6 +1799,7 @@ class Dashboard {
         console.log('Available field configs:', Object.keys(MODULE_FIELD_CONFIGS));
 
         this.currentEditId = null;
+        this.currentEditVersion = null;
         this.currentModule = module;
         this.currentFields = MODULE_FIELD_CONFIGS[module] || [];
 
@@ -1830,6 +1820,7 @@ class Dashboard {
 
     async openEditModal(module, id) {
         this.currentEditId = id;
+        this.currentEditVersion = null;
         this.currentModule = module;
         this.currentFields = MODULE_FIELD_CONFIGS[module] || [];
         document.getElementById('modalTitle').textContent = `Edit ${this.getModuleTitle(module).slice(0, -1)}`;
@@ -1858,6 +1849,9 @@ class Dashboard {
 
                 console.log('Item data for form:', itemData);
 
+                // Sent back with the update so the server can refuse it if someone saved in between
+                this.currentEditVersion = itemData.version !== undefined ? itemData.version : null;
+
                 await this.buildForm(itemData);
 
                 // Make sure submit button is visible
@@ -2679,6 +2673,10 @@ class Dashboard {
                 }
             });
 
+            if (this.currentEditId && this.currentEditVersion !== null) {
+                data.version = this.currentEditVersion;
+            }
+
             console.log('Submitting data:', data);
 
             const url = this.currentEditId ?
@@ -2706,8 +2704,10 @@ class Dashboard {
             if (response.ok) {
                 this.closeModal();
 
-                // Auto refresh table data to show latest changes
-                await this.loadData(this.currentModule);
+                // The live feed reloads the table once the change is pushed; without it, reload now
+                if (!this.liveFeed) {
+                    await this.loadData(this.currentModule);
+                }
 
                 // Show success notification
                 const action = this.currentEditId ? 'updated' : 'created';
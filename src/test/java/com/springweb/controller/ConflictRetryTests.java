@@ -0,0 +1,179 @@
+package com.springweb.controller;
+
+import com.springweb.service.TransactionChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Saves a transaction while another writer bumps its version between the read and the commit of
+ * each attempt, and checks that the edit is retried, that it ends in a 409 once the retries are
+ * used up, and what the conflict counters record for both.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ConflictRetryTests {
+
+    // Explicit ids well clear of the generators, so other tests sharing the database are not disturbed
+    private static final long USER_ID = 3_000_000;
+    private static final long ORDER_ID = 3_000_000;
+    private static final long TRANSACTION_ID = 3_000_000;
+    private static final String OPERATION = "transaction.update";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConcurrentWriter concurrentWriter;
+
+    private final MockHttpSession session = new MockHttpSession();
+
+    @BeforeEach
+    void seed() {
+        session.setAttribute("authenticatedUser", "conflicts");
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", TRANSACTION_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE id = ?", ORDER_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        jdbcTemplate.update("INSERT INTO users (id, username, access_code, name, gender) VALUES (?, ?, ?, ?, ?)",
+                USER_ID, "conflicts", "00", "Conflict User", "male");
+        jdbcTemplate.update("INSERT INTO orders (id, version, order_number, user_id, total_amount, status, "
+                + "placed_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                ORDER_ID, 0, "ORD-CONFLICT", USER_ID, new BigDecimal("10.00"), "PENDING", now, now);
+        jdbcTemplate.update("INSERT INTO transactions (id, version, transaction_number, order_id, payment_method, "
+                + "transaction_type, amount, status, transaction_date, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", TRANSACTION_ID, 0, "TXN-CONFLICT", ORDER_ID, "CASH",
+                "PAYMENT", new BigDecimal("10.00"), "PENDING", now, now, now);
+    }
+
+    @Test
+    void conflictingSaveIsRetriedFromAFreshRead() throws Exception {
+        concurrentWriter.conflictsLeft.set(1);
+        double conflicts = count("optimistic.lock.conflicts");
+        double retries = count("optimistic.lock.retries");
+        double exhausted = count("optimistic.lock.exhausted");
+
+        mockMvc.perform(editAmount("12.50")).andExpect(status().isOk());
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(amount()));
+        // One version from the concurrent writer, one from the retried save
+        assertEquals(2, version());
+        assertEquals(conflicts + 1, count("optimistic.lock.conflicts"));
+        assertEquals(retries + 1, count("optimistic.lock.retries"));
+        assertEquals(exhausted, count("optimistic.lock.exhausted"));
+    }
+
+    @Test
+    void editIsRefusedWithConflictOnceTheRetriesAreUsedUp() throws Exception {
+        concurrentWriter.conflictsLeft.set(Integer.MAX_VALUE);
+        double conflicts = count("optimistic.lock.conflicts");
+        double retries = count("optimistic.lock.retries");
+        double exhausted = count("optimistic.lock.exhausted");
+
+        try {
+            mockMvc.perform(editAmount("12.50")).andExpect(status().isConflict());
+        } finally {
+            concurrentWriter.conflictsLeft.set(0);
+        }
+
+        assertEquals(0, new BigDecimal("10.00").compareTo(amount()));
+        assertEquals(conflicts + 4, count("optimistic.lock.conflicts"));
+        assertEquals(retries + 3, count("optimistic.lock.retries"));
+        assertEquals(exhausted + 1, count("optimistic.lock.exhausted"));
+    }
+
+    @Test
+    void editFromAStaleVersionIsRefusedWithoutRetrying() throws Exception {
+        double conflicts = count("optimistic.lock.conflicts");
+
+        mockMvc.perform(put("/api/transactions/{id}", TRANSACTION_ID).session(session)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":\"12.50\",\"version\":7}"))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, new BigDecimal("10.00").compareTo(amount()));
+        assertEquals(0, version());
+        assertEquals(conflicts, count("optimistic.lock.conflicts"));
+    }
+
+    private MockHttpServletRequestBuilder editAmount(String amount) {
+        return put("/api/transactions/{id}", TRANSACTION_ID).session(session)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":\"" + amount + "\"}");
+    }
+
+    private BigDecimal amount() {
+        return jdbcTemplate.queryForObject("SELECT amount FROM transactions WHERE id = ?", BigDecimal.class,
+                TRANSACTION_ID);
+    }
+
+    private long version() {
+        return jdbcTemplate.queryForObject("SELECT version FROM transactions WHERE id = ?", Long.class,
+                TRANSACTION_ID);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", OPERATION).count();
+    }
+
+    @TestConfiguration
+    static class ConcurrentWriterConfiguration {
+
+        @Bean
+        ConcurrentWriter concurrentWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            return new ConcurrentWriter(jdbcTemplate, transactionManager);
+        }
+    }
+
+    // Bumps the version of the edited transaction in its own commit, after the edit read it and
+    // before the edit commits, for as many attempts as conflictsLeft says
+    static class ConcurrentWriter {
+
+        final AtomicInteger conflictsLeft = new AtomicInteger();
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate separateTransaction;
+
+        ConcurrentWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.separateTransaction = new TransactionTemplate(transactionManager);
+            this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+
+        @EventListener
+        public void onTransactionChanged(TransactionChangedEvent event) {
+            if (TRANSACTION_ID == event.getTransactionId()
+                    && conflictsLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                separateTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                        "UPDATE transactions SET version = version + 1 WHERE id = ?", TRANSACTION_ID));
+            }
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package com.springweb.controller;
+
+import com.springweb.entity.*;
+import com.springweb.repository.*;
+import com.springweb.service.KeysetCursor;
+import com.springweb.service.ProductSearchIndex;
+import com.springweb.support.StatementCounter;
+import com.springweb.support.StatementCountingConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Puts a ceiling on the JDBC statements each REST endpoint runs against a seeded dataset.
+ * A lazy association walked per row, or a query moved into a loop, pushes an endpoint over
+ * its budget and fails the build. Lower a budget when an endpoint gets cheaper; raising one
+ * needs a reason in the review.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementCountingConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointStatementBudgetTests {
+
+    private static final String USERNAME = "budget";
+
+    // 40 orders and 80 items, plus three single-item orders to edit and delete, leave room in the
+    // current 50-id blocks for the order created below
+    private static final int CATEGORIES = 3;
+    private static final int SUPPLIERS = 2;
+    private static final int PRODUCTS = 20;
+    private static final int ORDERS = 40;
+    private static final int ITEMS_PER_ORDER = 2;
+    private static final int BULK_LINES = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    private final MockHttpSession session = new MockHttpSession();
+
+    private Category category;
+    private Supplier supplier;
+    private List<Product> products;
+    private Product product;
+    private Order order;
+    private Transaction transaction;
+
+    // Rows the write endpoints change or delete, so the rows other tests read stay as seeded
+    private Category editedCategory;
+    private Category deletedCategory;
+    private Supplier editedSupplier;
+    private Supplier deletedSupplier;
+    private Product deletedProduct;
+    private Order editedOrder;
+    private Order deletedOrder;
+    private Order reItemedOrder;
+    private Order oneLineOrder;
+    private Order bulkLineOrder;
+    private List<Product> bulkProducts;
+    private Transaction editedTransaction;
+    private Transaction deletedTransaction;
+
+    @BeforeAll
+    void seed() {
+        User user = userRepository.save(new User(USERNAME, "00", "Budget User", "male", null));
+        session.setAttribute("authenticatedUser", USERNAME);
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(categoryRepository.save(new Category("Category " + i, "Seeded category " + i)));
+        }
+        List<Supplier> suppliers = new ArrayList<>();
+        for (int i = 0; i < SUPPLIERS; i++) {
+            suppliers.add(supplierRepository.save(
+                    new Supplier("Supplier " + i, "Contact " + i, "supplier" + i + "@example.com", "555-000" + i,
+                            "Address " + i)));
+        }
+
+        products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product seeded = new Product("Product " + i, "Seeded product " + i, BigDecimal.valueOf(10 + i), 5 + i * 50);
+            seeded.setSku("SKU-" + i);
+            seeded.setCategory(categories.get(i % CATEGORIES));
+            seeded.setSupplier(suppliers.get(i % SUPPLIERS));
+            seeded.setIsActive(i % 5 != 0);
+            products.add(seeded);
+        }
+        products = productRepository.saveAll(products);
+
+        Order.OrderStatus[] statuses = Order.OrderStatus.values();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order seeded = new Order(user, BigDecimal.ZERO, statuses[i % statuses.length], "Ship " + i, "Bill " + i);
+            seeded.setOrderNumber("ORD-SEED-" + i);
+            seeded.setCustomerName("Customer " + i);
+            seeded.setCustomerEmail("customer" + i + "@example.com");
+
+            List<OrderItem> items = new ArrayList<>();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product itemProduct = products.get((i + j * 7) % PRODUCTS);
+                OrderItem item = new OrderItem();
+                item.setOrder(seeded);
+                item.setProduct(itemProduct);
+                item.setQuantity(j + 1);
+                item.setUnitPrice(itemProduct.getPrice());
+                item.setTotalPrice(itemProduct.getPrice().multiply(BigDecimal.valueOf(j + 1)));
+                total = total.add(item.getTotalPrice());
+                items.add(item);
+            }
+            seeded.setOrderItems(items);
+            seeded.setTotalAmount(total);
+            orders.add(seeded);
+        }
+        orders = orderRepository.saveAll(orders);
+
+        Transaction.TransactionStatus[] transactionStatuses = Transaction.TransactionStatus.values();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Transaction seeded = new Transaction(orders.get(i), Transaction.PaymentMethod.CASH,
+                    Transaction.TransactionType.PAYMENT, orders.get(i).getTotalAmount(),
+                    transactionStatuses[i % transactionStatuses.length]);
+            seeded.setTransactionNumber("TXN-SEED-" + i);
+            transactions.add(seeded);
+        }
+        transactions = transactionRepository.saveAll(transactions);
+
+        editedCategory = categoryRepository.save(new Category("Edited category", "Seeded for updates"));
+        deletedCategory = categoryRepository.save(new Category("Deleted category", "Seeded for deletion"));
+        editedSupplier = supplierRepository.save(new Supplier("Edited supplier", "Contact E", "edited@example.com",
+                "555-0100", "Address E"));
+        deletedSupplier = supplierRepository.save(new Supplier("Deleted supplier", "Contact D", "deleted@example.com",
+                "555-0101", "Address D"));
+        Product unordered = new Product("Unordered product", "Seeded for deletion", BigDecimal.TEN, 5);
+        unordered.setSku("SKU-UNORDERED");
+        unordered.setCategory(categories.get(0));
+        deletedProduct = productRepository.save(unordered);
+        editedOrder = orderRepository.save(singleItemOrder(user, "ORD-SEED-EDITED", products.get(PRODUCTS - 1)));
+        deletedOrder = orderRepository.save(singleItemOrder(user, "ORD-SEED-DELETED", products.get(PRODUCTS - 1)));
+        reItemedOrder = orderRepository.save(singleItemOrder(user, "ORD-SEED-REITEMED", products.get(PRODUCTS - 1)));
+        oneLineOrder = orderRepository.save(singleItemOrder(user, "ORD-SEED-ONE-LINE", products.get(PRODUCTS - 1)));
+        bulkLineOrder = orderRepository.save(singleItemOrder(user, "ORD-SEED-BULK-LINES", products.get(PRODUCTS - 1)));
+        // Inactive, so the product listings above are not changed by them
+        List<Product> bulk = new ArrayList<>();
+        for (int i = 0; i < BULK_LINES; i++) {
+            Product seeded = new Product("Bulk product " + i, "Seeded for order edits", BigDecimal.ONE, 1_000);
+            seeded.setSku("SKU-BULK-" + i);
+            seeded.setCategory(categories.get(0));
+            seeded.setIsActive(false);
+            bulk.add(seeded);
+        }
+        bulkProducts = productRepository.saveAll(bulk);
+        Transaction edited = new Transaction(orders.get(1), Transaction.PaymentMethod.CASH,
+                Transaction.TransactionType.PAYMENT, BigDecimal.TEN, Transaction.TransactionStatus.PENDING);
+        edited.setTransactionNumber("TXN-SEED-EDITED");
+        editedTransaction = transactionRepository.save(edited);
+        Transaction deleted = new Transaction(orders.get(1), Transaction.PaymentMethod.CASH,
+                Transaction.TransactionType.PAYMENT, BigDecimal.TEN, Transaction.TransactionStatus.PENDING);
+        deleted.setTransactionNumber("TXN-SEED-DELETED");
+        deletedTransaction = transactionRepository.save(deleted);
+
+        // The seed bypasses the product API, so the search index has not heard of it
+        productSearchIndex.rebuild();
+
+        category = categories.get(0);
+        supplier = suppliers.get(0);
+        product = products.get(0);
+        order = orders.get(0);
+        transaction = transactions.get(0);
+    }
+
+    @Test
+    void productEndpoints() throws Exception {
+        // Page plus count
+        assertStatements(2, get("/api/products").param("page", "0").param("size", "10"));
+        assertStatements(1, get("/api/products").param("page", "-1"));
+        assertStatements(1, get("/api/products").param("page", "0").param("size", "10").param("search", "Product"));
+        // Product plus its lazy category and supplier
+        assertStatements(3, get("/api/products/{id}", product.getId()));
+        assertStatements(1, get("/api/products/active"));
+        assertStatements(1, get("/api/products/low-stock").param("threshold", "200"));
+        assertStatements(1, get("/api/products/search").param("name", "Product"));
+        assertStatements(1, get("/api/products/category/{id}", category.getId()));
+        assertStatements(1, get("/api/products/supplier/{id}", supplier.getId()));
+    }
+
+    @Test
+    void productUpdateChangesStock() throws Exception {
+        Product edited = productRepository.findById(products.get(17).getId()).orElseThrow();
+        String body = "{\"name\":\"Edited product\",\"stockQuantity\":" + (edited.getStockQuantity() + 7)
+                + ",\"version\":" + edited.getVersion() + "}";
+
+        // Product, its versioned UPDATE and the outbox batch, then the lazy category and supplier of the response
+        assertStatements(5, put("/api/products/{id}", edited.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+        Product saved = productRepository.findById(edited.getId()).orElseThrow();
+        assertEquals(edited.getStockQuantity() + 7, saved.getStockQuantity().intValue());
+        assertEquals("Edited product", saved.getName());
+        assertEquals(edited.getVersion() + 1, saved.getVersion().longValue());
+    }
+
+    @Test
+    void productDeletion() throws Exception {
+        // Existence check, product, its items for the cascade, then the delete and the outbox batch
+        assertStatements(5, delete("/api/products/{id}", deletedProduct.getId()));
+        assertTrue(productRepository.findById(deletedProduct.getId()).isEmpty());
+    }
+
+    @Test
+    void updatesFromStaleVersionsAreRefused() throws Exception {
+        Product stale = productRepository.findById(products.get(16).getId()).orElseThrow();
+        mockMvc.perform(put("/api/products/{id}", stale.getId()).session(session)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Stale edit\",\"version\":" + (stale.getVersion() + 1) + "}"))
+                .andExpect(status().isConflict());
+        assertEquals(stale.getName(), productRepository.findById(stale.getId()).orElseThrow().getName());
+
+        Order staleOrder = orderRepository.findById(order.getId()).orElseThrow();
+        mockMvc.perform(put("/api/orders/{id}", staleOrder.getId()).session(session)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerName\":\"Stale edit\",\"version\":" + (staleOrder.getVersion() + 1) + "}"))
+                .andExpect(status().isConflict());
+        assertEquals(staleOrder.getCustomerName(),
+                orderRepository.findById(staleOrder.getId()).orElseThrow().getCustomerName());
+
+        Transaction staleTransaction = transactionRepository.findById(transaction.getId()).orElseThrow();
+        mockMvc.perform(put("/api/transactions/{id}/status", staleTransaction.getId()).session(session)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"FAILED\",\"version\":\"" + (staleTransaction.getVersion() + 1) + "\"}"))
+                .andExpect(status().isConflict());
+        assertEquals(staleTransaction.getStatus(),
+                transactionRepository.findById(staleTransaction.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void orderEndpoints() throws Exception {
+        // Page of ids, count when the page is full, then items and products for those ids
+        assertStatements(2, get("/api/orders").param("page", "0").param("size", "50"));
+        assertStatements(3, get("/api/orders").param("page", "0").param("size", "10"));
+        assertStatements(3, get("/api/orders").param("page", "1").param("size", "10")
+                .param("search", "customer").param("status", "pending"));
+        assertStatements(2, get("/api/orders").param("page", "-1"));
+        // Seek for ids, then items and products for that window
+        assertStatements(2, get("/api/orders/feed").param("size", "10"));
+        assertStatements(2, get("/api/orders/feed").param("size", "10").param("after", cursorAt(order.getId())));
+        assertStatements(1, get("/api/orders/{id}", order.getId()));
+        assertStatements(3, get("/api/orders/search").param("query", "Customer"));
+        assertStatements(3, get("/api/orders/status/{status}", "PENDING"));
+        assertStatements(1, get("/api/orders/by-order-number/{number}", order.getOrderNumber()));
+        assertStatements(1, get("/api/orders/statistics"));
+    }
+
+    @Test
+    void orderCreation() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            lines.append(i > 0 ? "," : "").append("{\"productId\":").append(products.get(i).getId()).append(",\"quantity\":1}");
+        }
+        String body = "{\"customerName\":\"Budget Customer\",\"orderItems\":[" + lines + "]}";
+
+        // User, products, stock batch, order insert, item batch, one id block refill (select + update) and
+        // the outbox batch; rollups, caches and the live feed are updated by the outbox poller instead
+        assertStatements(8, post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    @Test
+    void nonPositiveQuantitiesAreRejected() throws Exception {
+        Product product = products.get(0);
+        int stock = stockOf(product);
+
+        for (String endpoint : List.of("/api/orders", "/api/simple-orders")) {
+            for (int quantity : new int[] { 0, -5 }) {
+                mockMvc.perform(post(endpoint).session(session).contentType(MediaType.APPLICATION_JSON)
+                        .content(itemsBody(product, quantity)))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+        assertEquals(stock, stockOf(product));
+    }
+
+    @Test
+    void orderUpdatesAndDeletion() throws Exception {
+        // Order, its versioned UPDATE and the outbox batch, then the user, items and products of the response
+        assertStatements(6, put("/api/orders/{id}", editedOrder.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerName\":\"Edited Customer\",\"customerPhone\":\"555-0199\"}"));
+        // Order and the items whose stock a status change may move, then as above; no stock moves here
+        assertStatements(6, put("/api/orders/{id}/status", editedOrder.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"CONFIRMED\"}"));
+        // Order, its items for the cascade, the stock batch, the item and order deletes and the outbox batch
+        assertStatements(6, delete("/api/orders/{id}", deletedOrder.getId()));
+
+        Order saved = orderRepository.findById(editedOrder.getId()).orElseThrow();
+        assertEquals("Edited Customer", saved.getCustomerName());
+        assertEquals(Order.OrderStatus.CONFIRMED, saved.getStatus());
+        assertTrue(orderRepository.findById(deletedOrder.getId()).isEmpty());
+    }
+
+    @Test
+    void orderItemEditsMoveStockWithTheOrder() throws Exception {
+        Product kept = products.get(PRODUCTS - 1);
+        Product added = products.get(PRODUCTS - 2);
+        int keptStock = stockOf(kept);
+        int addedStock = stockOf(added);
+
+        // The rejected line rolls back the stock returned for the other one, and the order keeps its items
+        mockMvc.perform(put("/api/orders/{id}", reItemedOrder.getId()).session(session)
+                .contentType(MediaType.APPLICATION_JSON).content(itemsBody(added, addedStock + 1)))
+                .andExpect(status().isBadRequest());
+        assertEquals(keptStock, stockOf(kept));
+        assertEquals(addedStock, stockOf(added));
+        assertEquals(kept.getId(), itemsOf(reItemedOrder).get(0).getProduct().getId());
+
+        mockMvc.perform(put("/api/orders/{id}", reItemedOrder.getId()).session(session)
+                .contentType(MediaType.APPLICATION_JSON).content(itemsBody(added, 2)))
+                .andExpect(status().isOk());
+        assertEquals(keptStock + 1, stockOf(kept));
+        assertEquals(addedStock - 2, stockOf(added));
+        List<OrderItem> items = itemsOf(reItemedOrder);
+        assertEquals(1, items.size());
+        assertEquals(added.getId(), items.get(0).getProduct().getId());
+        assertEquals(2, items.get(0).getQuantity().intValue());
+    }
+
+    @Test
+    void orderItemEditBudgetDoesNotGrowWithTheLines() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < BULK_LINES; i++) {
+            lines.append(i > 0 ? "," : "").append("{\"productId\":").append(bulkProducts.get(i).getId())
+                    .append(",\"quantity\":1}");
+        }
+
+        // Order and its items, the products in one query, the stock batch, the item batch, the order update,
+        // the orphaned item delete, the outbox batch, the user of the response and the live feed stock levels
+        assertStatements(9, put("/api/orders/{id}", oneLineOrder.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(itemsBody(bulkProducts.get(0), 1)));
+        // The same statements for a hundred lines, plus one id block refill (select + update) per 50 new items
+        assertStatements(13, put("/api/orders/{id}", bulkLineOrder.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderItems\":[" + lines + "]}"));
+    }
+
+    @Test
+    void transactionEndpoints() throws Exception {
+        assertStatements(2, get("/api/transactions").param("page", "0").param("size", "10"));
+        assertStatements(1, get("/api/transactions").param("page", "-1"));
+        assertStatements(2, get("/api/transactions").param("page", "0").param("size", "10")
+                .param("search", "txn").param("status", "completed").param("type", "payment")
+                .param("paymentMethod", "cash"));
+        assertStatements(1, get("/api/transactions").param("page", "-1").param("status", "pending"));
+        assertStatements(1, get("/api/transactions/feed").param("size", "10"));
+        assertStatements(1, get("/api/transactions/feed").param("size", "10")
+                .param("after", cursorAt(transaction.getId())));
+        assertStatements(1, get("/api/transactions/{id}", transaction.getId()));
+        assertStatements(1, get("/api/transactions/order/{id}", order.getId()));
+        assertStatements(1, get("/api/transactions/status/{status}", "COMPLETED"));
+        assertStatements(1, get("/api/transactions/type/{type}", "PAYMENT"));
+        assertStatements(1, get("/api/transactions/by-transaction-number/{number}",
+                transaction.getTransactionNumber()));
+        assertStatements(1, get("/api/transactions/date-range")
+                .param("startDate", LocalDate.now().minusDays(1).toString())
+                .param("endDate", LocalDate.now().toString()));
+        assertStatements(1, get("/api/transactions/statistics"));
+        assertStatements(1, get("/api/transactions/statistics")
+                .param("startDate", LocalDate.now().minusDays(7).toString()));
+    }
+
+    @Test
+    void transactionUpdatesAndDeletion() throws Exception {
+        // Transaction, its versioned UPDATE and the outbox batch; the order is not serialized
+        assertStatements(3, put("/api/transactions/{id}", editedTransaction.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":\"12.50\",\"description\":\"Edited transaction\"}"));
+        assertStatements(3, put("/api/transactions/{id}/status", editedTransaction.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("{\"status\":\"COMPLETED\"}"));
+        assertStatements(3, delete("/api/transactions/{id}", deletedTransaction.getId()));
+
+        Transaction saved = transactionRepository.findById(editedTransaction.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("12.50").compareTo(saved.getAmount()));
+        assertEquals(Transaction.TransactionStatus.COMPLETED, saved.getStatus());
+        assertTrue(transactionRepository.findById(deletedTransaction.getId()).isEmpty());
+    }
+
+    @Test
+    void reportEndpoints() throws Exception {
+        // Day totals plus one row per category from the rollups
+        assertStatements(2, get("/api/reports/sales"));
+        assertStatements(1, get("/api/reports/revenue").param("groupBy", "daily"));
+        assertStatements(1, get("/api/reports/revenue").param("groupBy", "weekly"));
+        assertStatements(1, get("/api/reports/revenue").param("groupBy", "monthly"));
+        assertStatements(1, get("/api/reports/inventory"));
+        assertStatements(1, get("/api/reports/inventory").param("category", category.getName()));
+        // Rows plus count, no product entities
+        assertStatements(2, get("/api/reports/inventory/products").param("size", "5"));
+        assertStatements(2, get("/api/reports/inventory/products").param("category", category.getName())
+                .param("size", "5"));
+        assertStatements(1, get("/api/reports/low-stock").param("threshold", "200"));
+        assertStatements(1, get("/api/reports/transaction-summary"));
+        assertStatements(2, get("/api/reports/financial-summary"));
+        // A closed period is computed and stored once, then read back from the snapshot
+        String lastMonthStart = LocalDate.now().withDayOfMonth(1).minusMonths(1).toString();
+        String lastMonthEnd = LocalDate.now().withDayOfMonth(1).minusDays(1).toString();
+        mockMvc.perform(post("/api/reports/snapshots").session(session).param("type", "revenue")
+                .param("period", "last-month")).andExpect(status().isOk());
+        assertStatements(1, get("/api/reports/revenue").param("startDate", lastMonthStart)
+                .param("endDate", lastMonthEnd).param("groupBy", "daily"));
+        assertStatements(2, get("/api/reports/snapshots"));
+    }
+
+    @Test
+    void categoryEndpoints() throws Exception {
+        assertStatements(1, get("/api/categories").param("page", "0").param("size", "10"));
+        assertStatements(1, get("/api/categories").param("page", "-1"));
+        assertStatements(1, get("/api/categories/{id}", category.getId()));
+        assertStatements(1, get("/api/categories/search").param("name", "Category"));
+        assertStatements(1, get("/api/categories/with-product-count"));
+        // Name check, then the insert
+        assertStatements(2, post("/api/categories").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Created category\",\"description\":\"Created\"}"));
+        // Category, name check, then the update
+        assertStatements(3, put("/api/categories/{id}", editedCategory.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed category\",\"description\":\"Edited\"}"));
+        // Existence check, category, its products for the cascade, then the delete
+        assertStatements(4, delete("/api/categories/{id}", deletedCategory.getId()));
+    }
+
+    @Test
+    void supplierEndpoints() throws Exception {
+        assertStatements(1, get("/api/suppliers").param("page", "0").param("size", "10"));
+        assertStatements(1, get("/api/suppliers").param("page", "-1"));
+        assertStatements(1, get("/api/suppliers/{id}", supplier.getId()));
+        // Name, email and phone checks, then the insert
+        assertStatements(4, post("/api/suppliers").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Created supplier\",\"contactName\":\"Contact C\","
+                        + "\"contactEmail\":\"created@example.com\",\"phone\":\"555-0102\"}"));
+        // Supplier, name check, then the update
+        assertStatements(3, put("/api/suppliers/{id}", editedSupplier.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed supplier\"}"));
+        // Supplier, its products for the cascade, then the delete
+        assertStatements(3, delete("/api/suppliers/{id}", deletedSupplier.getId()));
+    }
+
+    // Helper method to build a pending order of one item
+    private Order singleItemOrder(User user, String orderNumber, Product itemProduct) {
+        Order seeded = new Order(user, itemProduct.getPrice(), Order.OrderStatus.PENDING, "Ship", "Bill");
+        seeded.setOrderNumber(orderNumber);
+        seeded.setCustomerName("Customer " + orderNumber);
+
+        OrderItem item = new OrderItem();
+        item.setOrder(seeded);
+        item.setProduct(itemProduct);
+        item.setQuantity(1);
+        item.setUnitPrice(itemProduct.getPrice());
+        item.setTotalPrice(itemProduct.getPrice());
+        seeded.setOrderItems(new ArrayList<>(List.of(item)));
+        return seeded;
+    }
+
+    private String itemsBody(Product product, int quantity) {
+        return "{\"orderItems\":[{\"productId\":" + product.getId() + ",\"quantity\":" + quantity + "}]}";
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private List<OrderItem> itemsOf(Order seeded) {
+        return orderRepository.findByIdWithItems(seeded.getId()).orElseThrow().getOrderItems();
+    }
+
+    // Helper method to build a feed cursor that every seeded row is older than
+    private String cursorAt(Long id) {
+        return new KeysetCursor(LocalDateTime.now().plusDays(1), id).encode();
+    }
+
+    // Helper method to run one request and compare its statement count with the budget
+    private void assertStatements(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        StatementCounter.reset();
+        MvcResult result = mockMvc.perform(request.session(session)).andExpect(status().isOk()).andReturn();
+        int executed = StatementCounter.count();
+
+        StringBuilder endpoint = new StringBuilder(result.getRequest().getMethod())
+                .append(' ').append(result.getRequest().getRequestURI());
+        result.getRequest().getParameterMap().forEach((name, values) -> endpoint
+                .append(endpoint.indexOf("?") < 0 ? '?' : '&').append(name).append('=').append(values[0]));
+        assertTrue(executed <= budget,
+                () -> endpoint + " executed " + executed + " statements, budget is " + budget);
+    }
+}
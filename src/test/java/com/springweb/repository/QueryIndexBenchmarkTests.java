@@ -0,0 +1,64 @@
+package com.springweb.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Times the queries of {@link QueryIndexTests} on a larger dataset, without the V10 indexes and then
+ * with them, and logs the means. Timings depend on the machine and on H2 rather than MySQL, so they
+ * are for comparison only. Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class QueryIndexBenchmarkTests extends QueryIndexTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryIndexBenchmarkTests.class);
+
+    private static final int WARM_UP_RUNS = 3;
+    private static final int RUNS = 20;
+
+    @Override
+    int orderCount() {
+        return 20_000;
+    }
+
+    @Test
+    void timeQueriesBeforeAndAfterIndexMigration() throws IOException {
+        Map<String, Supplier<Object>> queries = queries();
+
+        dropMigrationIndexes();
+        Map<String, Long> beforeNanos = time(queries);
+        new ResourceDatabasePopulator(MIGRATION).execute(dataSource);
+        Map<String, Long> afterNanos = time(queries);
+
+        logger.info("Query means over {} runs on {} orders, before and after the index migration (ms)", RUNS,
+                orderCount());
+        for (String name : queries.keySet()) {
+            logger.info(String.format("%-60s %10.3f %10.3f", name, beforeNanos.get(name) / 1e6,
+                    afterNanos.get(name) / 1e6));
+        }
+    }
+
+    // Helper method to run each query a few times to warm up, then time RUNS more
+    private Map<String, Long> time(Map<String, Supplier<Object>> queries) {
+        Map<String, Long> meanNanos = new LinkedHashMap<>();
+        queries.forEach((name, query) -> {
+            for (int i = 0; i < WARM_UP_RUNS; i++) {
+                query.get();
+            }
+            long started = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                query.get();
+            }
+            meanNanos.put(name, (System.nanoTime() - started) / RUNS);
+        });
+        return meanNanos;
+    }
+}
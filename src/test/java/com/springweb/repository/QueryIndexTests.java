@@ -0,0 +1,162 @@
+package com.springweb.repository;
+
+import com.springweb.entity.Order;
+import com.springweb.entity.Transaction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the repository queries the V10 index migration is for on a seeded dataset, first without
+ * those indexes and then after running the migration script itself, and checks that both runs
+ * return the same results. {@link QueryIndexBenchmarkTests} times the same queries on a larger dataset.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryIndexTests {
+
+    static final Resource MIGRATION = new ClassPathResource("db/migration/V10__query_indexes.sql");
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE INDEX (\\w+) ON");
+
+    // Explicit ids well clear of the generators, so other tests sharing the database are not disturbed
+    private static final long FIRST_ID = 1_000_000;
+    private static final int CATEGORIES = 10;
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Orders seeded, each with one transaction; a tenth as many products
+    int orderCount() {
+        return 1_000;
+    }
+
+    @BeforeAll
+    void seed() {
+        int productCount = orderCount() / 10;
+        jdbcTemplate.update("INSERT INTO users (id, username, access_code, name, gender) VALUES (?, ?, ?, ?, ?)",
+                FIRST_ID, "benchmark", "00", "Benchmark User", "male");
+
+        List<Object[]> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(new Object[] { FIRST_ID + i, "Benchmark category " + i });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (id, name) VALUES (?, ?)", categories);
+
+        List<Object[]> products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            products.add(new Object[] { FIRST_ID + i, 0, "Benchmark product " + i, "BENCH-P" + i,
+                    new BigDecimal("9.99"), i % 200, FIRST_ID + i % CATEGORIES, i % 10 != 0, 10 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (id, version, name, sku, price, stock_quantity, category_id, "
+                + "is_active, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", products);
+
+        // Mostly delivered orders with completed payments; the filtered statuses and types are rare
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> transactions = new ArrayList<>();
+        for (int i = 0; i < orderCount(); i++) {
+            LocalDateTime placedAt = NOW.minusMinutes(30L * i);
+            BigDecimal amount = BigDecimal.valueOf(1000 + i % 50_000, 2);
+            String orderStatus = i % 50 == 0 ? "CANCELLED" : i % 20 == 0 ? "PENDING" : "DELIVERED";
+            orders.add(new Object[] { FIRST_ID + i, 0, "BENCH-O" + i, FIRST_ID, amount, orderStatus,
+                    placedAt, placedAt });
+            transactions.add(new Object[] { FIRST_ID + i, 0, "BENCH-T" + i, FIRST_ID + i,
+                    i % 2 == 0 ? "CASH" : "CREDIT_CARD", i % 25 == 0 ? "REFUND" : "PAYMENT", amount,
+                    i % 40 == 0 ? "FAILED" : "COMPLETED", placedAt, placedAt, placedAt });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, version, order_number, user_id, total_amount, status, "
+                + "placed_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", orders);
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, version, transaction_number, order_id, "
+                + "payment_method, transaction_type, amount, status, transaction_date, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", transactions);
+    }
+
+    @Test
+    void indexMigrationKeepsQueryResults() throws IOException {
+        Map<String, Supplier<Object>> queries = queries();
+
+        dropMigrationIndexes();
+        Map<String, Object> before = new LinkedHashMap<>();
+        queries.forEach((name, query) -> before.put(name, query.get()));
+
+        new ResourceDatabasePopulator(MIGRATION).execute(dataSource);
+        Map<String, Object> after = new LinkedHashMap<>();
+        queries.forEach((name, query) -> after.put(name, query.get()));
+
+        assertEquals(before, after);
+    }
+
+    void dropMigrationIndexes() throws IOException {
+        for (String index : migrationIndexes()) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+        }
+    }
+
+    Map<String, Supplier<Object>> queries() {
+        LocalDateTime monthAgo = NOW.minusMonths(1);
+        LocalDateTime weekAgo = NOW.minusWeeks(1);
+
+        Map<String, Supplier<Object>> queries = new LinkedHashMap<>();
+        queries.put("orders.countByStatus(CANCELLED)",
+                () -> orderRepository.countByStatus(Order.OrderStatus.CANCELLED));
+        queries.put("orders.findByStatusAndDateRange(PENDING, last month)",
+                () -> orderRepository.findByStatusAndDateRange(Order.OrderStatus.PENDING, monthAgo, NOW).size());
+        queries.put("transactions.findByTransactionTypeAndStatus(REFUND, COMPLETED)",
+                () -> transactionRepository.findByTransactionTypeAndStatus(Transaction.TransactionType.REFUND,
+                        Transaction.TransactionStatus.COMPLETED).size());
+        queries.put("transactions.findByStatusAndDateRange(FAILED, last month)",
+                () -> transactionRepository.findByStatusAndDateRange(Transaction.TransactionStatus.FAILED,
+                        monthAgo, NOW).size());
+        queries.put("transactions.sumCompletedAmountByDateRange(last week)",
+                () -> transactionRepository.sumCompletedAmountByDateRange(weekAgo, NOW));
+        queries.put("transactions.getRevenueByTransactionType()",
+                () -> transactionRepository.getRevenueByTransactionType().size());
+        queries.put("products.countLowStockActiveProducts(5)",
+                () -> productRepository.countLowStockActiveProducts(5));
+        return queries;
+    }
+
+    // Helper method to read the index names the migration creates
+    private static List<String> migrationIndexes() throws IOException {
+        Matcher matcher = CREATE_INDEX.matcher(MIGRATION.getContentAsString(StandardCharsets.UTF_8));
+        List<String> indexes = new ArrayList<>();
+        while (matcher.find()) {
+            indexes.add(matcher.group(1));
+        }
+        assertFalse(indexes.isEmpty(), "no CREATE INDEX in " + MIGRATION);
+        return indexes;
+    }
+}
@@ -0,0 +1,107 @@
+package com.springweb.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the Flyway migrations, configured as in application.properties, over databases created by
+ * releases from before Flyway: one still at the V1 schema, and one where Hibernate had already
+ * added part of V3 to V9 itself. Both have no migration history, are baselined at V1 and must end
+ * at the latest version with their rows intact.
+ */
+class SchemaMigrationTests {
+
+    @Test
+    void migratesDatabaseAtBaselineSchema() {
+        DataSource dataSource = releasedDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seedRows(jdbcTemplate);
+
+        MigrateResult result = flyway(dataSource).migrate();
+
+        assertEquals("11", result.targetSchemaVersion);
+        assertEquals(10, result.migrationsExecuted);
+        // Generators continue after the AUTO_INCREMENT ids already issued
+        assertEquals(13L, nextId(jdbcTemplate, "orders"));
+        assertEquals(8L, nextId(jdbcTemplate, "products"));
+        assertEquals(1L, nextId(jdbcTemplate, "transactions"));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = 12", Long.class)
+                .longValue());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT reorder_level FROM products WHERE id = 7", Integer.class)
+                .intValue());
+    }
+
+    @Test
+    void migratesDatabaseHibernateAlreadyUpdated() {
+        DataSource dataSource = releasedDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seedRows(jdbcTemplate);
+
+        // Part of V3, V4, V5, V8 and V9 as ddl-auto=update and the old generator seeding left them
+        jdbcTemplate.execute("ALTER TABLE orders ADD COLUMN version BIGINT DEFAULT 0 NOT NULL");
+        jdbcTemplate.execute("CREATE TABLE id_generators (sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,"
+                + " next_val BIGINT)");
+        jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES ('orders', 101)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_placed_at_id ON orders (placed_at, id)");
+        jdbcTemplate.execute("ALTER TABLE reports ADD COLUMN period_start DATE");
+        jdbcTemplate.execute("CREATE TABLE outbox_events (id BIGINT NOT NULL AUTO_INCREMENT,"
+                + " event_type VARCHAR(60) NOT NULL, payload TEXT NOT NULL, created_at DATETIME(6) NOT NULL,"
+                + " dispatched_at DATETIME(6), attempts INT NOT NULL, PRIMARY KEY (id))");
+
+        MigrateResult result = flyway(dataSource).migrate();
+
+        assertEquals("11", result.targetSchemaVersion);
+        assertEquals(10, result.migrationsExecuted);
+        // A generator that was already handing out ids keeps its position
+        assertEquals(101L, nextId(jdbcTemplate, "orders"));
+        assertEquals(8L, nextId(jdbcTemplate, "products"));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM products WHERE id = 7", Long.class)
+                .longValue());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reports WHERE period_end IS NOT NULL",
+                Integer.class).intValue());
+    }
+
+    // Helper method to create a database the way the first release left it, without migration history
+    private DataSource releasedDatabase() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql"))
+                .execute(dataSource);
+        return dataSource;
+    }
+
+    private Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    private void seedRows(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (id, username, access_code, name, gender)"
+                + " VALUES (3, 'released', '00', 'Released User', 'male')");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (2, 'Released category')");
+        jdbcTemplate.update("INSERT INTO products (id, name, price, stock_quantity, category_id, is_active)"
+                + " VALUES (7, 'Released product', 9.99, 5, 2, TRUE)");
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, user_id, total_amount, status)"
+                + " VALUES (12, 'ORD-RELEASED', 3, 9.99, 'PENDING')");
+    }
+
+    private long nextId(JdbcTemplate jdbcTemplate, String sequenceName) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class,
+                sequenceName);
+    }
+}
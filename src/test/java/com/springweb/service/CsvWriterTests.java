@@ -0,0 +1,32 @@
+package com.springweb.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTests {
+
+    @Test
+    void plainFieldsAreWrittenAsIs() {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).row(1L, "ORD1", null, new BigDecimal("-12.50"));
+
+        assertEquals("1,ORD1,,-12.50\r\n", out.toString());
+    }
+
+    @Test
+    void separatorsQuotesAndLineBreaksAreQuoted() {
+        assertEquals("\"Doe, Jane\"", CsvWriter.escape("Doe, Jane"));
+        assertEquals("\"say \"\"hi\"\"\"", CsvWriter.escape("say \"hi\""));
+        assertEquals("\"line\nbreak\"", CsvWriter.escape("line\nbreak"));
+    }
+
+    @Test
+    void formulaLikeTextIsNeutralised() {
+        assertEquals("'=SUM(A1:A9)", CsvWriter.escape("=SUM(A1:A9)"));
+        assertEquals("'-1+1", CsvWriter.escape("-1+1"));
+    }
+}
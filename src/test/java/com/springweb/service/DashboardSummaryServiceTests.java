@@ -0,0 +1,90 @@
+package com.springweb.service;
+
+import com.springweb.entity.Order;
+import com.springweb.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardSummaryServiceTests {
+
+    // Repository calls in the order they were made, as "Repository.method"
+    private final List<String> queries = new ArrayList<>();
+
+    private final ProductRepository productRepository = repository(ProductRepository.class, (method, args) -> {
+        switch (method) {
+            case "count":
+                return 20L;
+            case "countLowStockActiveProducts":
+                assertEquals(10, args[0]);
+                return 3L;
+            case "findAtOrBelowReorderLevel":
+                return List.of();
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    });
+
+    private final DashboardSummaryService summaryService = new DashboardSummaryService(productRepository,
+            repository(OrderRepository.class, (method, args) -> method.equals("countByStatus")
+                    ? (args[0] == Order.OrderStatus.PENDING ? 4L : null) : 40L),
+            repository(CategoryRepository.class, (method, args) -> 5L),
+            repository(SupplierRepository.class, (method, args) -> 2L),
+            repository(TransactionRepository.class, (method, args) -> List.<Object[]>of(
+                    new Object[] { "2025-01-01", new BigDecimal("120.00"), new BigDecimal("20.00") })),
+            new LowStockIndex(productRepository, event -> { }), 10, 60_000, 2);
+
+    @AfterEach
+    void shutdown() {
+        summaryService.shutdown();
+    }
+
+    @Test
+    void summaryGathersEveryFigure() {
+        Map<String, Object> summary = summaryService.getSummary();
+
+        assertEquals(20L, summary.get("totalProducts"));
+        assertEquals(40L, summary.get("totalOrders"));
+        assertEquals(5L, summary.get("totalCategories"));
+        assertEquals(2L, summary.get("totalSuppliers"));
+        assertEquals(3L, summary.get("lowStockProducts"));
+        assertEquals(10, summary.get("lowStockThreshold"));
+        assertEquals(0, summary.get("belowReorderLevel"));
+        assertEquals(4L, summary.get("pendingOrders"));
+        assertEquals(new BigDecimal("120.00"), summary.get("todayRevenue"));
+        assertEquals(new BigDecimal("20.00"), summary.get("todayRefunds"));
+    }
+
+    @Test
+    void summaryIsServedFromTheSnapshotUntilAChangeIsDispatched() {
+        Map<String, Object> first = summaryService.getSummary();
+        int queriesPerSummary = queries.size();
+
+        assertSame(first, summaryService.getSummary());
+        assertEquals(queriesPerSummary, queries.size());
+
+        summaryService.handle(List.of(new StockChangedEvent(Set.of(1L))));
+        assertNotSame(first, summaryService.getSummary());
+        assertEquals(2 * queriesPerSummary, queries.size());
+    }
+
+    // Helper method to answer a repository's calls by method name and record them
+    private <R> R repository(Class<R> type, BiFunction<String, Object[], Object> answers) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    synchronized (queries) {
+                        queries.add(type.getSimpleName() + "." + method.getName());
+                    }
+                    return answers.apply(method.getName(), args);
+                }));
+    }
+}
@@ -0,0 +1,189 @@
+package com.springweb.service;
+
+import com.springweb.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveFeedServiceTests {
+
+    private static final Pattern EVENT_NAME = Pattern.compile("event:(\\S+)");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<TestEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Sends on the next emitter wait for this latch, as a client that is not reading would hold them
+    private CountDownLatch nextGate = new CountDownLatch(0);
+
+    // Buffers of two notices; sends time out after 10 s unless a test asks for less
+    private LiveFeedService liveFeed = liveFeed(10_000);
+
+    @AfterEach
+    void shutdown() {
+        liveFeed.shutdown();
+    }
+
+    @Test
+    void overflowingBufferIsClearedAndSendsOneResync() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        nextGate = gate;
+        liveFeed.subscribe(null);
+        TestEmitter emitter = emitters.get(0);
+        // The sender is now held sending the ready notice, with the buffer of two empty
+        assertTrue(emitter.sending.await(10, TimeUnit.SECONDS));
+
+        // The third and the sixth notices overflow; each overflow drops what was queued
+        for (long orderId = 1; orderId <= 6; orderId++) {
+            publishOrder(orderId);
+        }
+        publishOrder(7L);
+        gate.countDown();
+
+        assertEquals(List.of("ready", "resync", "order"), emitter.take(3));
+        assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, meterRegistry.counter("live.feed.overflows").count());
+    }
+
+    @Test
+    void stalledConnectionIsDroppedAndCompleted() throws Exception {
+        liveFeed.shutdown();
+        liveFeed = liveFeed(200);
+        CountDownLatch gate = new CountDownLatch(1);
+        nextGate = gate;
+        liveFeed.subscribe(null);
+        TestEmitter emitter = emitters.get(0);
+        assertTrue(emitter.sending.await(10, TimeUnit.SECONDS));
+
+        // The send timeout is 200 ms and stalls are checked every 100 ms
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (liveFeed.connectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, liveFeed.connectionCount());
+        assertEquals(1, meterRegistry.counter("live.feed.stalls").count());
+
+        publishOrder(1L);
+        gate.countDown();
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS));
+        assertNull(emitter.completedWith);
+        assertEquals(List.of("ready"), emitter.take(1));
+        assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void failedSendCompletesTheEmitterWithTheError() throws Exception {
+        nextGate = new CountDownLatch(0);
+        liveFeed.subscribe(null);
+        TestEmitter emitter = emitters.get(0);
+        assertEquals(List.of("ready"), emitter.take(1));
+
+        IOException brokenPipe = new IOException("Broken pipe");
+        emitter.failure = brokenPipe;
+        publishOrder(1L);
+
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS));
+        assertSame(brokenPipe, emitter.completedWith);
+        assertEquals(0, liveFeed.connectionCount());
+    }
+
+    @Test
+    void reconnectWithAnOlderLastEventIdIsToldToResync() throws Exception {
+        liveFeed.subscribe(null);
+        assertEquals(List.of("ready"), emitters.get(0).take(1));
+        publishOrder(1L);
+        publishOrder(2L);
+        assertEquals(List.of("order", "order"), emitters.get(0).take(2));
+
+        liveFeed.subscribe("1");
+        assertEquals(List.of("resync", "ready"), emitters.get(1).take(2));
+
+        liveFeed.subscribe("2");
+        assertEquals(List.of("ready"), emitters.get(2).take(1));
+        assertNull(emitters.get(2).events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private LiveFeedService liveFeed(long sendTimeoutMillis) {
+        return new LiveFeedService((ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }),
+                meterRegistry, 2, 60_000, 10, 60_000, sendTimeoutMillis, timeout -> {
+                    TestEmitter emitter = new TestEmitter(timeout, nextGate);
+                    emitters.add(emitter);
+                    return emitter;
+                });
+    }
+
+    private void publishOrder(long orderId) {
+        liveFeed.handle(List.of(new OrderChangedEvent(orderId, null, OrderChangedEvent.ChangeType.UPDATED)));
+    }
+
+    // Records the names of the events sent to it instead of writing them to a response
+    private static final class TestEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final CountDownLatch gate;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile IOException failure;
+        private volatile Throwable completedWith;
+
+        private TestEmitter(long timeout, CountDownLatch gate) {
+            super(timeout);
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData() instanceof String s ? s : ""));
+            Matcher name = EVENT_NAME.matcher(text);
+            if (name.find()) {
+                events.add(name.group(1));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable error) {
+            completedWith = error;
+            completed.countDown();
+        }
+
+        // Helper method to wait for the next events sent
+        private List<String> take(int count) throws InterruptedException {
+            List<String> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String event = events.poll(10, TimeUnit.SECONDS);
+                assertNotNull(event, "expected " + count + " events, got " + taken);
+                taken.add(event);
+            }
+            return taken;
+        }
+    }
+}
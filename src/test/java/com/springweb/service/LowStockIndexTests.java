@@ -0,0 +1,102 @@
+package com.springweb.service;
+
+import com.springweb.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LowStockIndexTests {
+
+    // Product id -> [id, stock, reorder level, active], as findReorderStates returns them
+    private final Map<Long, Object[]> products = new TreeMap<>();
+    private final List<Object> published = new ArrayList<>();
+
+    private final LowStockIndex index = new LowStockIndex(productRepository(), published::add);
+
+    @Test
+    void dropToTheReorderLevelAlertsOnce() {
+        put(1L, 20, 5, true);
+        index.load();
+
+        put(1L, 5, 5, true);
+        index.handle(List.of(new StockChangedEvent(Set.of(1L))));
+        // A replayed batch finds the level already applied
+        index.handle(List.of(new StockChangedEvent(Set.of(1L))));
+        put(1L, 2, 5, true);
+        index.handle(List.of(new StockChangedEvent(Set.of(1L))));
+
+        assertEquals(1, published.size());
+        LowStockAlertEvent alert = (LowStockAlertEvent) published.get(0);
+        assertEquals(1L, alert.getProductId());
+        assertEquals(5, alert.getStock());
+        assertEquals(5, alert.getReorderLevel());
+        assertEquals(1, index.count());
+    }
+
+    @Test
+    void restockedProductCanAlertAgain() {
+        put(1L, 3, 5, true);
+        index.load();
+        assertEquals(1, index.count());
+
+        put(1L, 50, 5, true);
+        index.handle(List.of(new StockChangedEvent(Set.of(1L))));
+        assertEquals(0, index.count());
+
+        put(1L, 4, 5, true);
+        index.handle(List.of(new StockChangedEvent(Set.of(1L))));
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void inactiveAndDeletedProductsLeaveTheIndex() {
+        put(1L, 0, 5, true);
+        put(2L, 1, 5, true);
+        index.load();
+        assertEquals(2, index.count());
+
+        put(1L, 0, 5, false);
+        products.remove(2L);
+        index.handle(List.of(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED),
+                new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.DELETED)));
+
+        assertEquals(0, index.count());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void raisedReorderLevelCountsAsACrossing() {
+        put(1L, 8, 5, true);
+        index.load();
+
+        put(1L, 8, 10, true);
+        index.handle(List.of(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED)));
+
+        assertEquals(1, published.size());
+    }
+
+    private void put(Long id, int stock, int reorderLevel, boolean active) {
+        products.put(id, new Object[] { id, stock, reorderLevel, active });
+    }
+
+    // Helper method to answer the index's queries from the map above
+    private ProductRepository productRepository() {
+        return (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findReorderStates")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Collection<?> ids = args == null ? products.keySet() : (Collection<?>) args[0];
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Object id : ids) {
+                        if (products.containsKey(id)) {
+                            rows.add(products.get(id));
+                        }
+                    }
+                    return rows;
+                });
+    }
+}
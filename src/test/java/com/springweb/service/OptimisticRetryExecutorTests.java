@@ -0,0 +1,83 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(meterRegistry);
+
+    @Test
+    void actionWithoutConflictRunsOnceAndCountsNothing() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("saved", retryExecutor.execute("test.save", () -> {
+            attempts.incrementAndGet();
+            return "saved";
+        }));
+        assertEquals(1, attempts.get());
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    @Test
+    void conflictIsRetriedUntilTheActionSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryExecutor.execute("test.save", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Row was updated by another transaction");
+            }
+            return "saved";
+        });
+
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, count("optimistic.lock.conflicts"));
+        assertEquals(2, count("optimistic.lock.retries"));
+        assertEquals(0, count("optimistic.lock.exhausted"));
+    }
+
+    @Test
+    void lastConflictIsThrownOnceTheAttemptsAreUsedUp() {
+        AtomicInteger attempts = new AtomicInteger();
+        OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("Always stale");
+
+        OptimisticLockingFailureException thrown = assertThrows(OptimisticLockingFailureException.class,
+                () -> retryExecutor.execute("test.save", () -> {
+                    attempts.incrementAndGet();
+                    throw conflict;
+                }));
+
+        assertSame(conflict, thrown);
+        assertEquals(4, attempts.get());
+        assertEquals(4, count("optimistic.lock.conflicts"));
+        assertEquals(3, count("optimistic.lock.retries"));
+        assertEquals(1, count("optimistic.lock.exhausted"));
+    }
+
+    @Test
+    void interruptDuringTheBackoffStopsRetrying() {
+        AtomicInteger attempts = new AtomicInteger();
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(OptimisticLockingFailureException.class, () -> retryExecutor.execute("test.save", () -> {
+                attempts.incrementAndGet();
+                throw new OptimisticLockingFailureException("Stale");
+            }));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    private long count(String name) {
+        return (long) meterRegistry.counter(name, "operation", "test.save").count();
+    }
+}
@@ -0,0 +1,166 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springweb.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Event id -> [id, event type, payload, dispatched], as findEventsAfter returns them
+    private final Map<Long, Object[]> events = new TreeMap<>();
+    private final List<Long> delivered = new ArrayList<>();
+    private int failuresLeft;
+
+    private final OutboxService outboxService = new OutboxService(outboxEventRepository(), objectMapper,
+            List.of(localHandler()), transactionManager(), new SimpleMeterRegistry(), 100, 3, 1000, 86_400_000,
+            60_000, 60_000);
+
+    @Test
+    void localHandlersWaitForDispatchAndForLowerIdsToCommit() throws Exception {
+        put(1L, true);
+        put(2L, true);
+        // 3 is not committed yet, and the database handlers have yet to take 5
+        put(4L, true);
+        put(5L, false);
+
+        assertFalse(outboxService.deliverLocalBatch());
+        assertEquals(List.of(1L, 2L, 4L), delivered);
+
+        put(3L, true);
+        put(5L, true);
+        outboxService.deliverLocalBatch();
+        assertEquals(List.of(1L, 2L, 4L, 3L, 5L), delivered);
+
+        outboxService.deliverLocalBatch();
+        assertEquals(5, delivered.size());
+    }
+
+    @Test
+    void everySkippedIdIsAwaitedHoweverWideTheGap() throws Exception {
+        put(1L, true);
+        // Far more than a batch of ids between them, all possibly still in flight
+        put(500L, true);
+
+        outboxService.deliverLocalBatch();
+        assertEquals(List.of(1L, 500L), delivered);
+
+        put(2L, true);
+        put(499L, true);
+        outboxService.deliverLocalBatch();
+        assertEquals(List.of(1L, 500L, 2L, 499L), delivered);
+    }
+
+    @Test
+    void gapWiderThanTheAwaitedLimitIsReadInSteps() throws Exception {
+        // No grace period, so ids that have not turned up are dropped on the next pass
+        OutboxService impatient = new OutboxService(outboxEventRepository(), objectMapper, List.of(localHandler()),
+                transactionManager(), new SimpleMeterRegistry(), 100, 3, 1000, 86_400_000, 60_000, 0);
+        put(1L, true);
+        // Ten batches of 100 may be awaited at once
+        put(2_500L, true);
+
+        assertFalse(impatient.deliverLocalBatch());
+        assertEquals(List.of(1L), delivered);
+
+        // An id inside the awaited part of the gap is still delivered when it commits
+        put(700L, true);
+        for (int pass = 0; pass < 10 && delivered.size() < 3; pass++) {
+            Thread.sleep(2);
+            impatient.deliverLocalBatch();
+        }
+        assertEquals(List.of(1L, 700L, 2_500L), delivered);
+    }
+
+    @Test
+    void failedLocalDeliveryIsRetriedUntilMaxAttempts() throws Exception {
+        put(1L, true);
+        // The batch and then the event on its own
+        failuresLeft = 2;
+
+        outboxService.deliverLocalBatch();
+        assertTrue(delivered.isEmpty());
+        outboxService.deliverLocalBatch();
+        assertEquals(List.of(1L), delivered);
+
+        put(2L, true);
+        failuresLeft = 10;
+        for (int i = 0; i < 5; i++) {
+            outboxService.deliverLocalBatch();
+        }
+        // Given up after its third attempt, each a failed batch and a failed retry on its own
+        assertEquals(4, failuresLeft);
+        assertEquals(List.of(1L), delivered);
+    }
+
+    private void put(Long id, boolean dispatched) throws Exception {
+        String payload = objectMapper.writeValueAsString(
+                new ProductChangedEvent(id, ProductChangedEvent.ChangeType.UPDATED));
+        events.put(id, new Object[] { id, ProductChangedEvent.class.getSimpleName(), payload, dispatched });
+    }
+
+    private OutboxHandler localHandler() {
+        return new OutboxHandler() {
+            @Override
+            public void handle(List<Object> batch) {
+                if (failuresLeft > 0) {
+                    failuresLeft--;
+                    throw new IllegalStateException("Handler failed");
+                }
+                for (Object event : batch) {
+                    delivered.add(((ProductChangedEvent) event).getProductId());
+                }
+            }
+
+            @Override
+            public boolean isNodeLocal() {
+                return true;
+            }
+        };
+    }
+
+    // Helper method to answer the node-local queries from the map above
+    private OutboxEventRepository outboxEventRepository() {
+        return (OutboxEventRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { OutboxEventRepository.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findReplayStart":
+                            return 0L;
+                        case "findEventsAfter":
+                            List<Object[]> after = new ArrayList<>();
+                            for (Object[] row : events.values()) {
+                                if ((Long) row[0] > (Long) args[0] && after.size() < (Integer) args[1]) {
+                                    after.add(row);
+                                }
+                            }
+                            return after;
+                        case "findEventsByIds":
+                            List<Object[]> found = new ArrayList<>();
+                            for (Object id : (Collection<?>) args[0]) {
+                                if (events.containsKey(id)) {
+                                    found.add(events.get(id));
+                                }
+                            }
+                            return found;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        return (PlatformTransactionManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PlatformTransactionManager.class },
+                (proxy, method, args) -> method.getName().equals("getTransaction")
+                        ? new SimpleTransactionStatus() : null);
+    }
+}
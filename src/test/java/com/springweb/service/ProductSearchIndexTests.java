@@ -0,0 +1,93 @@
+package com.springweb.service;
+
+import com.springweb.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTests {
+
+    // Product id -> [id, name, sku, description], as findSearchRows returns them
+    private final Map<Long, Object[]> products = new TreeMap<>();
+
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository());
+
+    @Test
+    void searchesBeforeTheFirstBuildFallBackToTheDatabase() {
+        assertFalse(index.isReady());
+        assertNull(index.searchIds("mouse"));
+    }
+
+    @Test
+    void exactSkuAndNamePrefixRankFirst() {
+        put(1L, "Gaming Mouse Pad", "PAD-1", "Cloth pad");
+        put(2L, "Wireless Mouse", "MOU-2", null);
+        put(3L, "Mouse", "MOU-3", null);
+        put(4L, "Keyboard", "KEY-4", "Pairs with any mouse");
+        put(5L, "Monitor", "MOUSE", null);
+        index.rebuild();
+
+        assertEquals(List.of(5L, 3L, 1L, 2L, 4L), index.searchIds("MOUSE"));
+    }
+
+    @Test
+    void everyTermMustMatchSomeField() {
+        put(1L, "Red Shirt", "SH-1", null);
+        put(2L, "Shirt", "SH-2", "Dark red cotton");
+        put(3L, "Red Hat", "HT-3", null);
+        index.rebuild();
+
+        assertEquals(Set.of(1L, 2L), new HashSet<>(index.searchIds("shirt red")));
+        assertEquals(List.of(), index.searchIds("shirt blue"));
+    }
+
+    @Test
+    void termsShorterThanAGramStillMatch() {
+        put(1L, "Cable A2", "C-1", null);
+        put(2L, "Cable B", "C-2", null);
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.searchIds("a2"));
+    }
+
+    @Test
+    void outboxChangesAreAppliedInPlace() {
+        put(1L, "Desk Lamp", "LMP-1", null);
+        put(2L, "Office Chair", "CHR-2", null);
+        index.rebuild();
+
+        put(1L, "Floor Light", "LMP-1", null);
+        products.remove(2L);
+        index.handle(List.of(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED),
+                new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.DELETED)));
+
+        assertEquals(List.of(), index.searchIds("lamp"));
+        assertEquals(List.of(1L), index.searchIds("light"));
+        assertEquals(List.of(), index.searchIds("chair"));
+    }
+
+    private void put(Long id, String name, String sku, String description) {
+        products.put(id, new Object[] { id, name, sku, description });
+    }
+
+    // Helper method to answer the index's queries from the map above
+    private ProductRepository productRepository() {
+        return (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findSearchRows")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Collection<?> ids = args == null ? products.keySet() : (Collection<?>) args[0];
+                    List<Object[]> rows = new ArrayList<>();
+                    for (Object id : ids) {
+                        if (products.containsKey(id)) {
+                            rows.add(products.get(id));
+                        }
+                    }
+                    return rows;
+                });
+    }
+}
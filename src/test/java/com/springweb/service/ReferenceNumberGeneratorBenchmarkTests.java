@@ -0,0 +1,50 @@
+package com.springweb.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the uniqueness test of {@link ReferenceNumberGeneratorTests} on millions of ids, and logs how
+ * many ids per second one caller and {@value ReferenceNumberGeneratorTests#THREADS} concurrent callers
+ * get. Past 4096 ids in a millisecond the generator borrows timestamps ahead of the clock, so a rate
+ * above 4,096,000 ids/sec cannot be sustained for long. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ReferenceNumberGeneratorBenchmarkTests extends ReferenceNumberGeneratorTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceNumberGeneratorBenchmarkTests.class);
+
+    private static final int WARM_UP_IDS = 1_000_000;
+    private static final int TIMED_IDS = 4_000_000;
+
+    @Override
+    int idsPerThread() {
+        return 500_000;
+    }
+
+    @Test
+    void measureThroughput() throws Exception {
+        ReferenceNumberGenerator generator = new ReferenceNumberGenerator(7, System::currentTimeMillis);
+        for (int i = 0; i < WARM_UP_IDS; i++) {
+            generator.nextId();
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < TIMED_IDS; i++) {
+            generator.nextId();
+        }
+        logThroughput("1 caller", TIMED_IDS, System.nanoTime() - started);
+
+        started = System.nanoTime();
+        takeConcurrently(generator, TIMED_IDS / THREADS);
+        logThroughput(THREADS + " callers", TIMED_IDS, System.nanoTime() - started);
+    }
+
+    private void logThroughput(String callers, int ids, long nanos) {
+        logger.info(String.format("%-12s %,d ids in %.1f ms, %,.0f ids/sec", callers, ids, nanos / 1e6,
+                ids / (nanos / 1e9)));
+    }
+}
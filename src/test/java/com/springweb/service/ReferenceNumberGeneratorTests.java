@@ -0,0 +1,107 @@
+package com.springweb.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceNumberGeneratorTests {
+
+    static final int THREADS = 8;
+
+    // Ids each thread takes in the uniqueness test
+    int idsPerThread() {
+        return 50_000;
+    }
+
+    @Test
+    void concurrentCallersNeverReceiveTheSameId() throws Exception {
+        ReferenceNumberGenerator generator = new ReferenceNumberGenerator(7, System::currentTimeMillis);
+        List<long[]> perThread = takeConcurrently(generator, idsPerThread());
+
+        long[] all = new long[THREADS * idsPerThread()];
+        int offset = 0;
+        for (long[] ids : perThread) {
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "ids must increase within a thread");
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "duplicate id " + all[i]);
+        }
+    }
+
+    @Test
+    void clockMovingBackwardsDoesNotRepeatIds() {
+        AtomicLong now = new AtomicLong(1_800_000_000_000L);
+        ReferenceNumberGenerator generator = new ReferenceNumberGenerator(1, now::get);
+
+        long first = generator.nextId();
+        now.addAndGet(-5_000);
+        long second = generator.nextId();
+
+        assertTrue(second > first);
+    }
+
+    @Test
+    void exhaustedMillisecondBorrowsTheNextOne() {
+        ReferenceNumberGenerator generator = new ReferenceNumberGenerator(1, () -> 1_800_000_000_000L);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void missingNodeIdIsRefused() {
+        assertThrows(IllegalStateException.class, () -> new ReferenceNumberGenerator(-1));
+    }
+
+    @Test
+    void nodeIdIsEncodedInEveryId() {
+        ReferenceNumberGenerator generator = new ReferenceNumberGenerator(513, System::currentTimeMillis);
+
+        assertEquals(513, (generator.nextId() >>> 12) & 1023);
+        assertTrue(generator.next("ORD").startsWith("ORD"));
+    }
+
+    // Helper method to start THREADS callers at once and collect the ids each of them took, in order
+    static List<long[]> takeConcurrently(ReferenceNumberGenerator generator, int idsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            start.countDown();
+            List<long[]> perThread = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                perThread.add(future.get(300, TimeUnit.SECONDS));
+            }
+            return perThread;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void secondCallIsServedFromTheCache() {
+        ReportCache cache = new ReportCache(meterRegistry, 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.get("sales", EnumSet.of(ReportCache.Source.ORDERS), () -> Map.of("run", loads.incrementAndGet()),
+                    "2025-01-01", "2025-01-31");
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2, meterRegistry.counter("report.cache.hits", "report", "sales").count());
+        assertEquals(1, meterRegistry.counter("report.cache.misses", "report", "sales").count());
+    }
+
+    @Test
+    void invalidationOnlyDropsReportsBuiltFromThatSource() {
+        ReportCache cache = new ReportCache(meterRegistry, 10, 60_000);
+        AtomicInteger salesLoads = new AtomicInteger();
+        AtomicInteger inventoryLoads = new AtomicInteger();
+
+        cache.get("sales", EnumSet.of(ReportCache.Source.ORDERS), () -> Map.of("run", salesLoads.incrementAndGet()));
+        cache.get("inventory", EnumSet.of(ReportCache.Source.PRODUCTS),
+                () -> Map.of("run", inventoryLoads.incrementAndGet()));
+        cache.invalidate(ReportCache.Source.ORDERS);
+        cache.get("sales", EnumSet.of(ReportCache.Source.ORDERS), () -> Map.of("run", salesLoads.incrementAndGet()));
+        cache.get("inventory", EnumSet.of(ReportCache.Source.PRODUCTS),
+                () -> Map.of("run", inventoryLoads.incrementAndGet()));
+
+        assertEquals(2, salesLoads.get());
+        assertEquals(1, inventoryLoads.get());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotStored() {
+        ReportCache cache = new ReportCache(meterRegistry, 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("sales", EnumSet.of(ReportCache.Source.ORDERS), () -> {
+            cache.invalidate(ReportCache.Source.ORDERS);
+            return Map.of("run", loads.incrementAndGet());
+        });
+        cache.get("sales", EnumSet.of(ReportCache.Source.ORDERS), () -> Map.of("run", loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        ReportCache cache = new ReportCache(meterRegistry, 2, 60_000);
+
+        cache.get("low-stock", EnumSet.of(ReportCache.Source.PRODUCTS), Map::of, 5);
+        cache.get("low-stock", EnumSet.of(ReportCache.Source.PRODUCTS), Map::of, 10);
+        cache.get("low-stock", EnumSet.of(ReportCache.Source.PRODUCTS), Map::of, 20);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.counter("report.cache.evictions", "report", "low-stock").count());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ReportCache cache = new ReportCache(meterRegistry, 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("revenue", EnumSet.of(ReportCache.Source.TRANSACTIONS),
+                    () -> {
+                        loads.incrementAndGet();
+                        await(release);
+                        return Map.of("total", 42);
+                    }, "2025-01-01", "2025-01-31", "DAILY")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<Map<String, Object>> result : results) {
+            assertEquals(42, result.get(10, TimeUnit.SECONDS).get("total"));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
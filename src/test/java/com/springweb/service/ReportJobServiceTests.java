@@ -0,0 +1,116 @@
+package com.springweb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportJobServiceTests {
+
+    private final ReportJobService service = new ReportJobService(new NoOpTransactionManager(),
+            new SimpleMeterRegistry(), 1, 1, 60_000);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void jobCompletesWithItsResult() throws Exception {
+        ReportJob job = service.submit("sales", "sales", "admin", running -> Map.of("total", 42));
+
+        awaitFinished(job);
+
+        assertEquals(ReportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(100, job.getProgress());
+        assertEquals(Map.of("total", 42), job.getResult());
+    }
+
+    @Test
+    void failureIsRecordedOnTheJob() throws Exception {
+        ReportJob job = service.submit("sales", "sales", "admin", running -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        awaitFinished(job);
+
+        assertEquals(ReportJob.Status.FAILED, job.getStatus());
+        assertEquals("database unavailable", job.getError());
+    }
+
+    @Test
+    void fullQueueRejectsNewJobs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        ReportJob running = service.submit("sales", "sales", "admin", job -> {
+            started.countDown();
+            await(release);
+            return Map.of();
+        });
+        started.await(5, TimeUnit.SECONDS);
+        ReportJob queued = service.submit("sales", "sales", "admin", job -> Map.of());
+
+        assertThrows(RejectedExecutionException.class,
+                () -> service.submit("sales", "sales", "admin", job -> Map.of()));
+        assertEquals(ReportJob.Status.RUNNING, running.getStatus());
+        assertEquals(ReportJob.Status.QUEUED, queued.getStatus());
+
+        release.countDown();
+        awaitFinished(queued);
+        assertEquals(ReportJob.Status.COMPLETED, queued.getStatus());
+    }
+
+    @Test
+    void jobsAreOnlyVisibleToTheirOwner() throws Exception {
+        ReportJob job = service.submit("sales", "sales", "admin", running -> Map.of());
+
+        assertTrue(service.find(job.getId(), "admin").isPresent());
+        assertFalse(service.find(job.getId(), "someone-else").isPresent());
+        assertFalse(service.find("unknown", "admin").isPresent());
+    }
+
+    private static void awaitFinished(ReportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (job.getStatus() != ReportJob.Status.COMPLETED && job.getStatus() != ReportJob.Status.FAILED) {
+            assertTrue(System.currentTimeMillis() < deadline, "job did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.springweb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springweb.entity.Order;
+import com.springweb.entity.Report;
+import com.springweb.repository.ReportRepository;
+import com.springweb.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportSnapshotServiceTests {
+
+    private static final LocalDate START = LocalDate.now().minusMonths(2).withDayOfMonth(1);
+    private static final LocalDate END = START.plusMonths(1).minusDays(1);
+
+    // Stored snapshots by id, as the reports table holds them
+    private final Map<Long, Report> stored = new TreeMap<>();
+    private long nextId = 1;
+    private Runnable beforeSave = () -> { };
+
+    private final ReportSnapshotService snapshotService = new ReportSnapshotService(reportRepository(),
+            (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                        throw new UnsupportedOperationException(method.getName());
+                    }),
+            new ObjectMapper(), transactionManager());
+
+    @Test
+    void closedPeriodIsComputedOnceAndReadBack() {
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> report = snapshotService.getOrCompute("sales", START, END, "", null,
+                    () -> Map.of("run", runs.incrementAndGet()));
+            assertEquals(1, report.get("run"));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, stored.size());
+        assertTrue(snapshotService.isNodeLocal());
+    }
+
+    @Test
+    void snapshotComputedAcrossAnEvictionIsNotStored() {
+        Map<String, Object> report = snapshotService.getOrCompute("sales", START, END, "", null, () -> {
+            snapshotService.evict(ReportSnapshotService.ORDER_REPORTS, START, START);
+            return Map.of("run", 1);
+        });
+
+        assertEquals(1, report.get("run"));
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    void evictionCountedWhileSavingRemovesTheSavedRow() {
+        // The eviction deletes before the row is written, so only the check after the save can catch it
+        beforeSave = () -> {
+            beforeSave = () -> { };
+            snapshotService.evict(ReportSnapshotService.ORDER_REPORTS, START, START);
+        };
+
+        Report report = snapshotService.findOrCreate("sales", START, END, "", null, () -> Map.of("run", 1));
+
+        assertEquals(Map.of("run", 1), snapshotService.decode(report));
+        assertTrue(stored.isEmpty());
+    }
+
+    @Test
+    void changeOnAClosedDayDropsTheSnapshotsBuiltFromIt() {
+        snapshotService.findOrCreate("sales", START, END, "", null, () -> Map.of("run", 1));
+        snapshotService.findOrCreate("revenue", START, END, "", null, () -> Map.of("run", 1));
+
+        snapshotService.handle(List.of(new OrderChangedEvent(1L, START.plusDays(3).atTime(12, 0),
+                OrderChangedEvent.ChangeType.UPDATED, Order.OrderStatus.DELIVERED)));
+
+        assertEquals(List.of("revenue"), stored.values().stream().map(Report::getReportType).toList());
+    }
+
+    @Test
+    void openPeriodIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.findOrCreate("sales", START,
+                LocalDate.now(), "", null, () -> Map.of()));
+    }
+
+    // Helper method to keep the snapshots in the map above
+    private ReportRepository reportRepository() {
+        return (ReportRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ReportRepository.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByReportTypeAndPeriodStartAndPeriodEndAndParameters":
+                            return stored.values().stream()
+                                    .filter(report -> report.getReportType().equals(args[0])
+                                            && report.getPeriodStart().equals(args[1])
+                                            && report.getPeriodEnd().equals(args[2])
+                                            && Objects.equals(report.getParameters(), args[3]))
+                                    .findFirst();
+                        case "save":
+                            beforeSave.run();
+                            Report report = (Report) args[0];
+                            report.setId(nextId++);
+                            stored.put(report.getId(), report);
+                            return report;
+                        case "deleteById":
+                            stored.remove(args[0]);
+                            return null;
+                        case "deleteSnapshotsOverlapping":
+                            Collection<?> types = (Collection<?>) args[0];
+                            LocalDate from = (LocalDate) args[1];
+                            LocalDate to = (LocalDate) args[2];
+                            int before = stored.size();
+                            stored.values().removeIf(stale -> types.contains(stale.getReportType())
+                                    && !stale.getPeriodStart().isAfter(to) && !stale.getPeriodEnd().isBefore(from));
+                            return before - stored.size();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        return (PlatformTransactionManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PlatformTransactionManager.class },
+                (proxy, method, args) -> method.getName().equals("getTransaction")
+                        ? new SimpleTransactionStatus() : null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.springweb.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs concurrent checkouts and stock edits against the guarded stock updates, and checks that
+ * stock never goes below zero and that a rejected line leaves the rest of the call unapplied.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class StockServiceTests {
+
+    // Explicit ids well clear of the generators, so other tests sharing the database are not disturbed
+    private static final long CATEGORY_ID = 2_000_000;
+    private static final long FIRST_PRODUCT_ID = 2_000_000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM products WHERE id >= ?", FIRST_PRODUCT_ID);
+        jdbcTemplate.update("MERGE INTO categories (id, name) KEY (id) VALUES (?, ?)", CATEGORY_ID, "Stock tests");
+    }
+
+    @Test
+    void lastUnitsGoToExactlyAsManyCheckouts() throws Exception {
+        int units = 5;
+        long productId = product(0, units);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(THREADS, 1, thread -> {
+            try {
+                stockService.reserve(Map.of(productId, 1));
+                accepted.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(units, accepted.get());
+        assertEquals(THREADS - units, rejected.get());
+        assertEquals(0, stockOf(productId));
+    }
+
+    @Test
+    void rejectedLineRollsBackTheAcceptedOnes() {
+        long plenty = product(1, 10);
+        long scarce = product(2, 1);
+        long returned = product(3, 4);
+
+        Map<Long, Integer> deltas = Map.of(plenty, 3, scarce, 2, returned, -2);
+        InsufficientStockException e = assertThrows(InsufficientStockException.class, () -> stockService.apply(deltas));
+
+        assertEquals(List.of(scarce), e.getProductIds());
+        assertEquals(10, stockOf(plenty));
+        assertEquals(1, stockOf(scarce));
+        assertEquals(4, stockOf(returned));
+    }
+
+    @Test
+    void opposingEditsOfTheSameProductsDoNotDeadlock() throws Exception {
+        // Half the edits move a unit from the first product to the second and half the other way, which
+        // locks the two rows in opposite orders unless every call applies its deltas sorted by id
+        long first = product(4, 1_000);
+        long second = product(5, 1_000);
+
+        runConcurrently(THREADS, 50, thread -> {
+            if (thread % 2 == 0) {
+                stockService.apply(Map.of(first, 1, second, -1));
+            } else {
+                stockService.apply(Map.of(first, -1, second, 1));
+            }
+        });
+
+        assertEquals(2_000, stockOf(first) + stockOf(second));
+        assertTrue(stockOf(first) >= 0 && stockOf(second) >= 0);
+    }
+
+    private long product(int index, int stock) {
+        long id = FIRST_PRODUCT_ID + index;
+        jdbcTemplate.update("INSERT INTO products (id, version, name, sku, price, stock_quantity, category_id, "
+                + "is_active, reorder_level) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, 0, "Stock product " + index, "STOCK-P" + index, new BigDecimal("9.99"), stock, CATEGORY_ID, true, 0);
+        return id;
+    }
+
+    private int stockOf(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    // Helper method to start every thread at once and run the task the given number of times on each
+    private void runConcurrently(int threads, int iterations, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        task.run(thread);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,87 @@
+package com.springweb.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedSnapshotTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void valueIsServedUntilItsTtlRunsOut() {
+        TimedSnapshot<Integer> snapshot = new TimedSnapshot<>(loads::incrementAndGet, 5_000, now::get);
+
+        assertEquals(1, snapshot.get());
+        now.addAndGet(4_999);
+        assertEquals(1, snapshot.get());
+        now.addAndGet(1);
+        assertEquals(2, snapshot.get());
+    }
+
+    @Test
+    void invalidationDropsTheValue() {
+        TimedSnapshot<Integer> snapshot = new TimedSnapshot<>(loads::incrementAndGet, 5_000, now::get);
+
+        assertEquals(1, snapshot.get());
+        snapshot.invalidate();
+        assertEquals(2, snapshot.get());
+        assertEquals(2, snapshot.get());
+    }
+
+    @Test
+    void valueComputedAcrossAnInvalidationIsNotServedAgain() {
+        AtomicReference<TimedSnapshot<Integer>> self = new AtomicReference<>();
+        self.set(new TimedSnapshot<>(() -> {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                self.get().invalidate();
+            }
+            return load;
+        }, 5_000, now::get));
+
+        assertEquals(1, self.get().get());
+        assertEquals(2, self.get().get());
+        assertEquals(2, self.get().get());
+    }
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TimedSnapshot<Integer> snapshot = new TimedSnapshot<>(() -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loads.incrementAndGet();
+        }, 5_000, now::get);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> callers = new ArrayList<>();
+            callers.add(executor.submit(snapshot::get));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                callers.add(executor.submit(snapshot::get));
+            }
+            release.countDown();
+            for (Future<Integer> caller : callers) {
+                assertEquals(1, caller.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+}
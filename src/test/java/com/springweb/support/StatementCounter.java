@@ -0,0 +1,63 @@
+package com.springweb.support;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+
+/**
+ * Counts the JDBC statements prepared on the calling thread. Hibernate and JdbcTemplate both
+ * go through the wrapped DataSource, so batched inserts count once per batch and background
+ * threads never leak into the count of a request.
+ */
+public final class StatementCounter {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private StatementCounter() {
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        Class<?>[] interfaces = dataSource instanceof Closeable
+                ? new Class<?>[] { DataSource.class, Closeable.class }
+                : new Class<?>[] { DataSource.class };
+        return (DataSource) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection connection ? wrap(connection) : result;
+                });
+    }
+
+    private static Connection wrap(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (STATEMENT_FACTORIES.contains(method.getName())) {
+                COUNT.get()[0]++;
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.springweb.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes the application DataSource through {@link StatementCounter}. Import it into a
+ * {@code @SpringBootTest} to put statement budgets on requests.
+ */
+@TestConfiguration
+public class StatementCountingConfiguration {
+
+    @Bean
+    static BeanPostProcessor statementCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? StatementCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+}